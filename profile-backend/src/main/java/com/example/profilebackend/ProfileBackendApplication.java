@@ -1,9 +1,14 @@
 package com.example.profilebackend;
 
+import com.example.profilebackend.config.ProfileBackendRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(ProfileBackendRuntimeHints.class)
 public class ProfileBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProfileBackendApplication.class, args);
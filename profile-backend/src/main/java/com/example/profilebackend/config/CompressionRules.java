@@ -0,0 +1,81 @@
+package com.example.profilebackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Which responses the gzip filters compress. Every path under /api uses
+ * api.compression.min-size unless an api.compression.endpoints entry
+ * ("pattern=bytes" or "pattern=off", first match wins) says otherwise;
+ * other paths are only compressed when an entry names them.
+ */
+@Component
+public class CompressionRules {
+    public static final int OFF = -1;
+
+    private static final PathPattern API = PathPatternParser.defaultInstance.parse("/api/**");
+
+    private final int defaultMinSize;
+    private final Map<PathPattern, Integer> endpoints = new LinkedHashMap<>();
+    private final List<MediaType> mimeTypes;
+
+    public CompressionRules(@Value("${api.compression.min-size:2048}") int defaultMinSize,
+                            @Value("${api.compression.endpoints:}") List<String> endpoints,
+                            @Value("${api.compression.mime-types:application/json,application/x-ndjson}") List<String> mimeTypes) {
+        this.defaultMinSize = defaultMinSize;
+        for (String entry : endpoints) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.lastIndexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected pattern=bytes or pattern=off: " + entry);
+            }
+            String threshold = entry.substring(equals + 1).trim();
+            this.endpoints.put(PathPatternParser.defaultInstance.parse(entry.substring(0, equals).trim()),
+                    "off".equals(threshold) ? OFF : Integer.parseInt(threshold));
+        }
+        this.mimeTypes = mimeTypes.stream().map(MediaType::parseMediaType).collect(Collectors.toList());
+    }
+
+    // Minimum body size in bytes to compress responses for this path, or OFF
+    public int minSize(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (Map.Entry<PathPattern, Integer> endpoint : endpoints.entrySet()) {
+            if (endpoint.getKey().matches(container)) {
+                return endpoint.getValue();
+            }
+        }
+        return API.matches(container) ? defaultMinSize : OFF;
+    }
+
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        return mimeTypes.stream().anyMatch(mimeType -> mimeType.includes(type));
+    }
+
+    public static boolean acceptsGzip(List<String> acceptEncoding) {
+        List<String> codings = new ArrayList<>();
+        acceptEncoding.forEach(header -> codings.addAll(List.of(header.split(","))));
+        for (String coding : codings) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
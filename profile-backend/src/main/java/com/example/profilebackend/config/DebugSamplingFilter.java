@@ -0,0 +1,46 @@
+package com.example.profilebackend.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples the DEBUG and TRACE lines of our own code and denies the rest
+ * before a logging event is even created. Library loggers and INFO and above
+ * are left alone. Configured in logback-spring.xml.
+ *
+ * The decision is made once per request by {@link RequestSamplingFilter} or
+ * {@link ReactiveRequestSamplingFilter} and read from the MDC, so a sampled
+ * request logs all of its lines. Threads outside a request fall back to
+ * sampling each call.
+ */
+public class DebugSamplingFilter extends TurboFilter {
+    public static final String MDC_KEY = "debugSampled";
+
+    private static final String APP_PACKAGE = "com.example.profilebackend.";
+
+    private int oneIn = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.INFO) || oneIn <= 1 || !logger.getName().startsWith(APP_PACKAGE)) {
+            return FilterReply.NEUTRAL;
+        }
+        String sampled = MDC.get(MDC_KEY);
+        boolean keep = sampled == null ? sample(oneIn) : Boolean.parseBoolean(sampled);
+        return keep ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setOneIn(int oneIn) {
+        this.oneIn = oneIn;
+    }
+
+    static boolean sample(int oneIn) {
+        return oneIn <= 1 || ThreadLocalRandom.current().nextInt(oneIn) == 0;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.profilebackend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for Spring MVC responses, with per-endpoint thresholds from
+ * {@link CompressionRules}.
+ *
+ * The body is held back until it reaches the endpoint's minimum size. Smaller
+ * bodies go out unchanged with a Content-Length; larger ones, and emitters
+ * that flush the response early, are compressed with sync flushes so NDJSON
+ * lines still reach the client as they are written.
+ */
+@Component
+@Profile("!reactive")
+public class GzipFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private CompressionRules compressionRules;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GzipResponse gzipResponse = WebUtils.getNativeResponse(response, GzipResponse.class);
+        if (gzipResponse == null) {
+            int minSize = compressionRules.minSize(request.getRequestURI().substring(request.getContextPath().length()));
+            if (minSize == CompressionRules.OFF) {
+                chain.doFilter(request, response);
+                return;
+            }
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!CompressionRules.acceptsGzip(Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING)))) {
+                chain.doFilter(request, response);
+                return;
+            }
+            gzipResponse = new GzipResponse(response, minSize);
+            response = gzipResponse;
+        }
+
+        chain.doFilter(request, response);
+        // Streaming bodies finish on the async dispatch that completes them
+        if (!isAsyncStarted(request)) {
+            gzipResponse.finish();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private final class GzipResponse extends HttpServletResponseWrapper {
+        private final int minSize;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;
+        private long contentLength = -1;
+        private BodyStream body;
+        private PrintWriter writer;
+
+        private GzipResponse(HttpServletResponse response, int minSize) {
+            super(response);
+            this.minSize = minSize;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (body == null) {
+                body = new BodyStream();
+            }
+            return body;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // The length is only known once we decide whether to compress
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            decide(true);
+            target.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (target == null) {
+                pending.reset();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (target == null) {
+                pending.reset();
+                contentLength = -1;
+            }
+            super.reset();
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target != null) {
+                target.write(bytes, offset, length);
+                return;
+            }
+            pending.write(bytes, offset, length);
+            if (pending.size() >= minSize) {
+                decide(true);
+            }
+        }
+
+        /**
+         * Picks the encoding and writes out what was held back. Small, complete
+         * bodies and types that do not compress well pass through unchanged.
+         */
+        private void decide(boolean compress) throws IOException {
+            if (target != null) {
+                return;
+            }
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (compress && !response.isCommitted()
+                    && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && compressionRules.isCompressible(response.getContentType())) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                String etag = response.getHeader(HttpHeaders.ETAG);
+                if (etag != null && !etag.startsWith("W/")) {
+                    // The compressed bytes differ, so the validator can no longer be strong
+                    response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+                target = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+            } else {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                } else if (!compress && pending.size() > 0) {
+                    response.setContentLength(pending.size());
+                }
+                target = response.getOutputStream();
+            }
+            pending.writeTo(target);
+            pending.reset();
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null && pending.size() == 0 && body == null) {
+                if (contentLength >= 0) {
+                    getResponse().setContentLengthLong(contentLength);
+                }
+                return;
+            }
+            decide(false);
+            if (target instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            target.flush();
+        }
+
+        private final class BodyStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                GzipResponse.this.write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                GzipResponse.this.write(bytes, offset, length);
+            }
+
+            // Message converters flush after every body, so below the threshold keep buffering
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            // Non-blocking writers follow the container's stream, which the bytes end up on
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot register write listener", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.profilebackend.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Reflection the native image cannot discover on its own. Spring Data
+ * contributes the repository proxies and @Document entities, and controller
+ * signatures cover most DTOs, but the Lombok accessors of types that are only
+ * read through MongoTemplate projections or nested in generic pages are not,
+ * so every class in the model and dto packages is registered for binding.
+ * Logback instantiates the turbo filter from logback-spring.xml by name.
+ */
+public class ProfileBackendRuntimeHints implements RuntimeHintsRegistrar {
+    private static final List<String> DATA_PACKAGES = List.of(
+            "com.example.profilebackend.model",
+            "com.example.profilebackend.dto");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Runs at build time, so scanning here costs nothing at startup
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((reader, factory) -> true);
+
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (String basePackage : DATA_PACKAGES) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                bindings.registerReflectionHints(hints.reflection(),
+                        ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+            }
+        }
+
+        hints.reflection().registerType(DebugSamplingFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
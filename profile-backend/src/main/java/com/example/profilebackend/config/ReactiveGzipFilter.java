@@ -0,0 +1,153 @@
+package com.example.profilebackend.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * WebFlux counterpart of {@link GzipFilter}. Encoders set Content-Length
+ * before writing single-value bodies, so the threshold is checked against
+ * that; streamed bodies have no length and are always compressed, with a
+ * sync flush after every element.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveGzipFilter implements WebFilter {
+
+    @Autowired
+    private CompressionRules compressionRules;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        int minSize = compressionRules.minSize(request.getPath().pathWithinApplication().value());
+        if (minSize == CompressionRules.OFF) {
+            return chain.filter(exchange);
+        }
+        exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!CompressionRules.acceptsGzip(request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING))) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new GzipResponse(exchange.getResponse(), minSize)).build());
+    }
+
+    private final class GzipResponse extends ServerHttpResponseDecorator {
+        private final int minSize;
+
+        private GzipResponse(ServerHttpResponse delegate, int minSize) {
+            super(delegate);
+            this.minSize = minSize;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!startGzip()) {
+                return super.writeWith(body);
+            }
+            Gzip gzip = new Gzip(bufferFactory());
+            return super.writeWith(Flux.from(body)
+                    .map(buffer -> gzip.write(buffer, false))
+                    .concatWith(Mono.fromCallable(gzip::finish))
+                    .doFinally(signal -> gzip.close()));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if (!startGzip()) {
+                return super.writeAndFlushWith(body);
+            }
+            Gzip gzip = new Gzip(bufferFactory());
+            Flux<Publisher<DataBuffer>> chunks = Flux.from(body)
+                    .map(chunk -> Flux.from(chunk).map(buffer -> gzip.write(buffer, true)));
+            return super.writeAndFlushWith(chunks
+                    .concatWith(Mono.just(Mono.fromCallable(gzip::finish)))
+                    .doFinally(signal -> gzip.close()));
+        }
+
+        private boolean startGzip() {
+            HttpHeaders headers = getHeaders();
+            long length = headers.getContentLength();
+            MediaType contentType = headers.getContentType();
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || (length >= 0 && length < minSize)
+                    || contentType == null || !compressionRules.isCompressible(contentType.toString())) {
+                return false;
+            }
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+            return true;
+        }
+    }
+
+    // One deflater per response; input buffers are released as they are consumed
+    private static final class Gzip {
+        private final DataBufferFactory bufferFactory;
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        private final GZIPOutputStream out;
+
+        private Gzip(DataBufferFactory bufferFactory) {
+            this.bufferFactory = bufferFactory;
+            try {
+                this.out = new GZIPOutputStream(compressed, 8192, true);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to start gzip stream", e);
+            }
+        }
+
+        private synchronized DataBuffer write(DataBuffer buffer, boolean flush) {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                out.write(bytes);
+                if (flush) {
+                    out.flush();
+                }
+                return drain();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to compress response", e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        private synchronized DataBuffer finish() throws IOException {
+            out.finish();
+            return drain();
+        }
+
+        private DataBuffer drain() {
+            DataBuffer buffer = bufferFactory.wrap(compressed.toByteArray());
+            compressed.reset();
+            return buffer;
+        }
+
+        private synchronized void close() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Only releases the deflater; the bytes have already been handed on
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.profilebackend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux counterpart of {@link RequestSamplingFilter}. The decision is in
+ * the MDC while the chain is assembled and the handler is invoked, and a
+ * schedule hook carries it to work the request hands to Reactor schedulers.
+ * Lines logged on the event loop after an I/O callback have no decision and
+ * are sampled per call.
+ */
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReactiveRequestSamplingFilter implements WebFilter {
+    private static final String HOOK_KEY = "debug-sampling";
+
+    private final int oneIn;
+
+    public ReactiveRequestSamplingFilter(@Value("${logging.sampling.debug-one-in:100}") int oneIn) {
+        this.oneIn = oneIn;
+    }
+
+    @PostConstruct
+    public void installHook() {
+        Schedulers.onScheduleHook(HOOK_KEY, task -> {
+            String sampled = MDC.get(DebugSamplingFilter.MDC_KEY);
+            return sampled == null ? task : () -> runSampled(sampled, task);
+        });
+    }
+
+    @PreDestroy
+    public void removeHook() {
+        Schedulers.resetOnScheduleHook(HOOK_KEY);
+    }
+
+    // The chain runs when it is subscribed, so the decision is set around the subscribe call
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Mono<Void> filtered = chain.filter(exchange);
+        return Mono.fromDirect(subscriber ->
+                runSampled(Boolean.toString(DebugSamplingFilter.sample(oneIn)), () -> filtered.subscribe(subscriber)));
+    }
+
+    private static void runSampled(String sampled, Runnable task) {
+        String previous = MDC.get(DebugSamplingFilter.MDC_KEY);
+        MDC.put(DebugSamplingFilter.MDC_KEY, sampled);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                MDC.remove(DebugSamplingFilter.MDC_KEY);
+            } else {
+                MDC.put(DebugSamplingFilter.MDC_KEY, previous);
+            }
+        }
+    }
+}
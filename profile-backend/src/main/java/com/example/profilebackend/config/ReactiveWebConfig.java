@@ -0,0 +1,45 @@
+package com.example.profilebackend.config;
+
+import com.example.profilebackend.service.FileUploadService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.resource.PathResourceResolver;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+// The servlet UploadController is not available on WebFlux; the reactive resource
+// handler handles ranges and conditional requests and uses the content hash as the ETag.
+// Like UploadController, it only serves committed files, never in-progress temp files.
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/uploads/**")
+                .addResourceLocations("file:uploads/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .setEtagGenerator(resource -> {
+                    String filename = resource.getFilename();
+                    if (filename == null) {
+                        return null;
+                    }
+                    int dot = filename.lastIndexOf('.');
+                    return dot > 0 ? filename.substring(0, dot) : filename;
+                })
+                .resourceChain(true)
+                .addResolver(new PathResourceResolver() {
+                    @Override
+                    protected Mono<Resource> getResource(String resourcePath, Resource location) {
+                        return FileUploadService.isStoredPath(resourcePath)
+                                ? super.getResource(resourcePath, location)
+                                : Mono.empty();
+                    }
+                });
+    }
+}
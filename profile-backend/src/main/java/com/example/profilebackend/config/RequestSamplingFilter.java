@@ -0,0 +1,42 @@
+package com.example.profilebackend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Decides once per request whether its DEBUG lines are kept, for
+ * {@link DebugSamplingFilter}. Runs first so the filters after it log
+ * under the same decision.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestSamplingFilter extends OncePerRequestFilter {
+    private final int oneIn;
+
+    public RequestSamplingFilter(@Value("${logging.sampling.debug-one-in:100}") int oneIn) {
+        this.oneIn = oneIn;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MDC.put(DebugSamplingFilter.MDC_KEY, Boolean.toString(DebugSamplingFilter.sample(oneIn)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(DebugSamplingFilter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.dto.UploadRequest;
+import com.example.profilebackend.model.UploadSession;
+import com.example.profilebackend.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resumable uploads: create a session, PUT the bytes in chunks at the
+ * session's offset, then complete. After a failure, GET the session to
+ * find the offset to resume from.
+ *
+ * This is the blocking fallback: a chunk holds its servlet thread for as
+ * long as the client takes to send it, up to upload.chunked.max-chunk-size
+ * bytes. Run with spring.threads.virtual.enabled so a slow client parks a
+ * virtual thread instead, or use the reactive profile, whose
+ * {@link ReactiveChunkedUploadController} holds no thread between buffers.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ChunkedUploadController {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadController.class);
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping("/{userId}")
+    public ResponseEntity<UploadSession> create(@PathVariable String userId, @RequestBody UploadRequest request) {
+        logger.debug("Received chunked upload request for user: {}", userId);
+        try {
+            return ResponseEntity.ok(chunkedUploadService.create(userId, request));
+        } catch (Exception e) {
+            logger.error("Error starting upload for user: {} - Error: {}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSession> status(@PathVariable String uploadId) {
+        return ResponseEntity.ok(chunkedUploadService.status(uploadId));
+    }
+
+    // Raw chunk bytes in the body, read as they arrive rather than parsed as multipart; blocks until the chunk is in
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<UploadSession> writeChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            HttpServletRequest request) {
+        logger.debug("Received chunk for upload: {} at offset: {}", uploadId, offset);
+        try {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, request.getInputStream()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            logger.error("Error writing chunk for upload: {} at offset: {} - Error: {}", uploadId, offset, e.getMessage());
+            throw e;
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Map<String, String>> complete(@PathVariable String uploadId) {
+        logger.debug("Received complete request for upload: {}", uploadId);
+        try {
+            String imageUrl = chunkedUploadService.complete(uploadId);
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Upload completed successfully");
+            response.put("imageUrl", imageUrl);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error completing upload: {} - Error: {}", uploadId, e.getMessage());
+            throw e;
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId) {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.ok().build();
+    }
+}
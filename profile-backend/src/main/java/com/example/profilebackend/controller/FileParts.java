@@ -0,0 +1,83 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.model.UploadSession;
+import com.example.profilebackend.service.ChunkedUploadService;
+import com.example.profilebackend.service.FileUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Upload handling shared by the WebFlux controllers
+final class FileParts {
+    private static final Logger logger = LoggerFactory.getLogger(FileParts.class);
+
+    private FileParts() {
+    }
+
+    // The part is spooled to a temp file without blocking, then hashed into storage off the event loop
+    static Mono<String> store(FileUploadService fileUploadService, FilePart file, String userId) {
+        String contentType = file.headers().getContentType() != null
+                ? file.headers().getContentType().toString()
+                : null;
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("part-", ".tmp")).subscribeOn(Schedulers.boundedElastic()),
+                part -> file.transferTo(part).then(Mono.fromCallable(() -> {
+                    if (Files.size(part) == 0) {
+                        throw new RuntimeException("File is empty");
+                    }
+                    try (InputStream in = Files.newInputStream(part)) {
+                        return fileUploadService.storeProfileImage(in, contentType, file.filename(), userId);
+                    }
+                }).subscribeOn(Schedulers.boundedElastic())),
+                part -> Mono.fromCallable(() -> Files.deleteIfExists(part)).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Writes one chunk of a resumable upload with an AsynchronousFileChannel.
+     * Only buffers the channel has finished writing count towards the new
+     * offset, so an aborted request leaves a resumable session behind.
+     */
+    static Mono<UploadSession> writeChunk(ChunkedUploadService chunkedUploadService, String uploadId,
+                                          long offset, Flux<DataBuffer> body) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> chunkedUploadService.begin(uploadId, offset)).subscribeOn(Schedulers.boundedElastic()),
+                write -> {
+                    // Writes complete in order, so sizes line up with the buffers coming back
+                    Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+                    Flux<DataBuffer> checked = body.doOnNext(buffer -> {
+                        write.reserve(buffer.readableByteCount());
+                        pending.add(buffer.readableByteCount());
+                    });
+                    return Mono.using(
+                            () -> AsynchronousFileChannel.open(write.getFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                            channel -> DataBufferUtils.write(checked, channel, offset)
+                                    .doOnNext(buffer -> write.written(pending.remove()))
+                                    .map(DataBufferUtils::release)
+                                    .then(),
+                            FileParts::closeQuietly);
+                },
+                write -> Mono.fromRunnable(() -> chunkedUploadService.finish(write)).subscribeOn(Schedulers.boundedElastic()))
+                .then(Mono.fromCallable(() -> chunkedUploadService.status(uploadId)).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close upload part - Error: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.dto.FeedItem;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Post;
+import com.example.profilebackend.service.FeedService;
+import com.example.profilebackend.service.FileUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/posts")
+@CrossOrigin(origins = "http://localhost:3000")
+public class PostController {
+    private static final Logger logger = LoggerFactory.getLogger(PostController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    // Multipart form: caption and/or an image file
+    @PostMapping("/{userId}")
+    public ResponseEntity<Post> createPost(
+            @PathVariable String userId,
+            @RequestParam(required = false) String caption,
+            @RequestParam(value = "file", required = false) MultipartFile file) {
+        logger.debug("Received create post request for user: {}", userId);
+        try {
+            if ((caption == null || caption.isBlank()) && (file == null || file.isEmpty())) {
+                throw new RuntimeException("Post must have a caption or an image");
+            }
+            String imageUrl = file == null || file.isEmpty() ? null : fileUploadService.uploadProfileImage(file, userId);
+            return ResponseEntity.ok(feedService.createPost(userId, caption, imageUrl));
+        } catch (Exception e) {
+            logger.error("Error creating post for user: {} - Error: {}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    // Releases the post's image; the file goes once nothing else refers to it
+    @DeleteMapping("/{userId}/{postId}")
+    public ResponseEntity<Void> deletePost(@PathVariable String userId, @PathVariable String postId) {
+        logger.debug("Received delete post request: {} of user: {}", postId, userId);
+        try {
+            feedService.deletePost(userId, postId);
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            logger.error("Error deleting post: {} of user: {} - Error: {}", postId, userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<CursorPage<Post>> getUserPosts(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "30") int size) {
+        return ResponseEntity.ok(feedService.getUserPosts(userId, cursor, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    @GetMapping("/feed/{userId}")
+    public ResponseEntity<CursorPage<FeedItem>> getFeed(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(feedService.getFeed(userId, cursor, Math.min(size, MAX_PAGE_SIZE)));
+    }
+}
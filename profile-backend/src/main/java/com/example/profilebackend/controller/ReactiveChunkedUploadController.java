@@ -0,0 +1,74 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.dto.UploadRequest;
+import com.example.profilebackend.model.UploadSession;
+import com.example.profilebackend.service.ChunkedUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WebFlux variant of {@link ChunkedUploadController}. Chunk bodies are
+ * written to the part file as the buffers arrive, so a slow client costs
+ * no thread while it trickles data in.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReactiveChunkedUploadController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveChunkedUploadController.class);
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping("/{userId}")
+    public Mono<UploadSession> create(@PathVariable String userId, @RequestBody UploadRequest request) {
+        return Mono.fromCallable(() -> chunkedUploadService.create(userId, request))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> logger.error("Error starting upload for user: {} - Error: {}", userId, e.getMessage()));
+    }
+
+    @GetMapping("/{uploadId}")
+    public Mono<UploadSession> status(@PathVariable String uploadId) {
+        return Mono.fromCallable(() -> chunkedUploadService.status(uploadId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PutMapping("/{uploadId}")
+    public Mono<UploadSession> writeChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestBody Flux<DataBuffer> body) {
+        return FileParts.writeChunk(chunkedUploadService, uploadId, offset, body)
+                .doOnError(e -> logger.error("Error writing chunk for upload: {} at offset: {} - Error: {}", uploadId, offset, e.getMessage()));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public Mono<Map<String, String>> complete(@PathVariable String uploadId) {
+        return Mono.fromCallable(() -> chunkedUploadService.complete(uploadId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(imageUrl -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("message", "Upload completed successfully");
+                    response.put("imageUrl", imageUrl);
+                    return response;
+                })
+                .doOnError(e -> logger.error("Error completing upload: {} - Error: {}", uploadId, e.getMessage()));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public Mono<Void> abort(@PathVariable String uploadId) {
+        return Mono.<Void>fromRunnable(() -> chunkedUploadService.abort(uploadId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
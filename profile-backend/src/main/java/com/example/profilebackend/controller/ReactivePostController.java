@@ -0,0 +1,79 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.dto.FeedItem;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Post;
+import com.example.profilebackend.service.FeedService;
+import com.example.profilebackend.service.FileUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+/**
+ * WebFlux variant of {@link PostController}. The feed store is blocking, so
+ * its calls run on the bounded elastic scheduler.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/posts")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReactivePostController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePostController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @PostMapping("/{userId}")
+    public Mono<Post> createPost(
+            @PathVariable String userId,
+            @RequestPart(value = "caption", required = false) String caption,
+            @RequestPart(value = "file", required = false) FilePart file) {
+        logger.debug("Received create post request for user: {}", userId);
+        if ((caption == null || caption.isBlank()) && file == null) {
+            return Mono.error(new RuntimeException("Post must have a caption or an image"));
+        }
+        Mono<String> imageUrl = file == null ? Mono.empty() : FileParts.store(fileUploadService, file, userId);
+        return imageUrl.map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(url -> Mono.fromCallable(() -> feedService.createPost(userId, caption, url.orElse(null)))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnError(e -> logger.error("Error creating post for user: {} - Error: {}", userId, e.getMessage()));
+    }
+
+    @DeleteMapping("/{userId}/{postId}")
+    public Mono<Void> deletePost(@PathVariable String userId, @PathVariable String postId) {
+        logger.debug("Received delete post request: {} of user: {}", postId, userId);
+        return Mono.<Void>fromRunnable(() -> feedService.deletePost(userId, postId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> logger.error("Error deleting post: {} of user: {} - Error: {}", postId, userId, e.getMessage()));
+    }
+
+    @GetMapping("/user/{userId}")
+    public Mono<CursorPage<Post>> getUserPosts(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "30") int size) {
+        return Mono.fromCallable(() -> feedService.getUserPosts(userId, cursor, Math.min(size, MAX_PAGE_SIZE)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/feed/{userId}")
+    public Mono<CursorPage<FeedItem>> getFeed(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return Mono.fromCallable(() -> feedService.getFeed(userId, cursor, Math.min(size, MAX_PAGE_SIZE)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.dto.MutualFollowers;
+import com.example.profilebackend.dto.Relationship;
+import com.example.profilebackend.dto.SignupRequest;
+import com.example.profilebackend.dto.SuggestedUser;
+import com.example.profilebackend.dto.UserProfile;
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.service.AvailabilityService;
+import com.example.profilebackend.service.FileUploadService;
+import com.example.profilebackend.service.ReactiveUserService;
+import com.example.profilebackend.service.ThumbnailService;
+import com.example.profilebackend.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * WebFlux implementation of the /api/users endpoints, active with the
+ * "reactive" profile. Request and response shapes match {@link UserController}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReactiveUserController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserController.class);
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_BATCH_IDS = 200;
+    private static final int MAX_STREAM_BATCH_SIZE = 5000;
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    // Thumbnail callbacks run on the thumbnail pool, where blocking is fine
+    @Autowired
+    private UserService blockingUserService;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @PostMapping("/signup")
+    public Mono<UserProfile> signup(@RequestBody SignupRequest user) {
+        logger.debug("Received signup request for user: {}", user.getUsername());
+        return userService.signup(user.toUser())
+                .map(UserProfile::from)
+                .doOnError(e -> logger.error("Error during signup for user: {} - Error: {}", user.getUsername(), e.getMessage()));
+    }
+
+    @PostMapping("/login")
+    public Mono<UserProfile> login(@RequestBody LoginRequest loginRequest) {
+        logger.debug("Received login request for user: {}", loginRequest.getUsername());
+        return userService.login(loginRequest.getUsername(), loginRequest.getPassword())
+                .map(UserProfile::from)
+                .doOnError(e -> logger.error("Error during login for user: {} - Error: {}", loginRequest.getUsername(), e.getMessage()));
+    }
+
+    @PostMapping("/logout")
+    public Mono<Void> logout() {
+        logger.debug("Received logout request");
+        return Mono.empty();
+    }
+
+    // Bloom filter lookups only fall back to Mongo on possible hits, so run them off the event loop
+    @GetMapping("/availability")
+    public Mono<Map<String, Boolean>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        return Mono.fromCallable(() -> {
+            Map<String, Boolean> response = new HashMap<>();
+            if (username != null) {
+                response.put("username", availabilityService.isUsernameAvailable(username));
+            }
+            if (email != null) {
+                response.put("email", availabilityService.isEmailAvailable(email));
+            }
+            return response;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Profile endpoints
+    // Conditional GETs: a matching If-None-Match completes empty with a 304 before any body is built
+    @GetMapping("/profile/{userId}")
+    public Mono<UserProfile> getProfile(@PathVariable String userId, ServerWebExchange exchange) {
+        return userService.getProfile(userId)
+                .filter(profile -> !exchange.checkNotModified(UserProfile.etag(profile)))
+                .map(UserProfile::from)
+                .doOnError(e -> logger.error("Error getting profile for user: {} - Error: {}", userId, e.getMessage()));
+    }
+
+    @GetMapping("/profiles")
+    public Mono<List<UserProfile>> getProfiles(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return Mono.error(new RuntimeException("At most " + MAX_BATCH_IDS + " ids per request"));
+        }
+        return userService.getProfiles(ids)
+                .map(users -> users.stream().map(UserProfile::from).collect(Collectors.toList()));
+    }
+
+    @GetMapping("/profile/username/{username}")
+    public Mono<UserProfile> getProfileByUsername(@PathVariable String username, ServerWebExchange exchange) {
+        return userService.getProfileByUsername(username)
+                .filter(profile -> !exchange.checkNotModified(UserProfile.etag(profile)))
+                .map(UserProfile::from)
+                .doOnError(e -> logger.error("Error getting profile for username: {} - Error: {}", username, e.getMessage()));
+    }
+
+    @PutMapping("/profile/{userId}")
+    public Mono<UserProfile> updateProfile(@PathVariable String userId, @RequestBody User updatedUser) {
+        logger.debug("Received update profile request for user: {}", userId);
+        return userService.updateProfile(userId, updatedUser)
+                .map(UserProfile::from)
+                .doOnError(e -> logger.error("Error updating profile for user: {} - Error: {}", userId, e.getMessage()));
+    }
+
+    // Follow system endpoints
+    @PostMapping("/follow/{followerId}/{followingId}")
+    public Mono<Void> followUser(@PathVariable String followerId, @PathVariable String followingId) {
+        logger.debug("Received follow request: {} following {}", followerId, followingId);
+        return userService.followUser(followerId, followingId)
+                .doOnError(e -> logger.error("Error processing follow request: {} following {} - Error: {}", followerId, followingId, e.getMessage()));
+    }
+
+    @PostMapping("/unfollow/{followerId}/{followingId}")
+    public Mono<Void> unfollowUser(@PathVariable String followerId, @PathVariable String followingId) {
+        logger.debug("Received unfollow request: {} unfollowing {}", followerId, followingId);
+        return userService.unfollowUser(followerId, followingId)
+                .doOnError(e -> logger.error("Error processing unfollow request: {} unfollowing {} - Error: {}", followerId, followingId, e.getMessage()));
+    }
+
+    @GetMapping("/followers/{userId}")
+    public Mono<CursorPage<UserSummary>> getFollowers(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            ServerWebExchange exchange) {
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        return userService.getFollowersVersion(userId, cursor, pageSize)
+                .filter(etag -> !exchange.checkNotModified(etag))
+                .flatMap(etag -> userService.getFollowers(userId, cursor, pageSize));
+    }
+
+    @GetMapping("/following/{userId}")
+    public Mono<CursorPage<UserSummary>> getFollowing(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            ServerWebExchange exchange) {
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        return userService.getFollowingVersion(userId, cursor, pageSize)
+                .filter(etag -> !exchange.checkNotModified(etag))
+                .flatMap(etag -> userService.getFollowing(userId, cursor, pageSize));
+    }
+
+    @GetMapping("/relationships/{viewerId}")
+    public Mono<List<Relationship>> getRelationships(
+            @PathVariable String viewerId,
+            @RequestParam List<String> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return Mono.error(new RuntimeException("At most " + MAX_BATCH_IDS + " ids per request"));
+        }
+        return userService.getRelationships(viewerId, ids);
+    }
+
+    @GetMapping("/suggestions/{userId}")
+    public Mono<List<SuggestedUser>> getSuggestions(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return userService.getSuggestions(userId, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    @GetMapping("/mutuals/{viewerId}/{targetId}")
+    public Mono<MutualFollowers> getMutualFollowers(
+            @PathVariable String viewerId,
+            @PathVariable String targetId,
+            @RequestParam(defaultValue = "3") int limit) {
+        return userService.getMutualFollowers(viewerId, targetId, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // Search endpoints
+    @GetMapping("/search")
+    public Mono<List<UserSummary>> searchUsers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        return userService.searchUsers(query, prefix, offset, Math.min(limit, MAX_SEARCH_LIMIT));
+    }
+
+    // JSON array or, with Accept: application/x-ndjson, one user per line as the cursor is read
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UserSummary> getAllUsers(@RequestParam(defaultValue = "500") int batchSize) {
+        logger.debug("Received get all users request");
+        return userService.getAllUsers(Math.max(1, Math.min(batchSize, MAX_STREAM_BATCH_SIZE)));
+    }
+
+    // Every other Accept, Smile and CBOR included, gets the collected list: those
+    // encoders write one value, and CBOR cannot encode a Flux at all. Without
+    // produces, this mapping never ties with the one above, as in UserController.
+    @GetMapping("/all")
+    public Mono<List<UserSummary>> getAllUsersCollected(@RequestParam(defaultValue = "500") int batchSize) {
+        logger.debug("Received get all users request");
+        return userService.getAllUsers(Math.max(1, Math.min(batchSize, MAX_STREAM_BATCH_SIZE))).collectList();
+    }
+
+    // File upload endpoints
+    @PostMapping("/upload-profile-image/{userId}")
+    public Mono<Map<String, String>> uploadProfileImage(@PathVariable String userId, @RequestPart("file") FilePart file) {
+        logger.debug("Received profile image upload request for user: {}", userId);
+        return FileParts.store(fileUploadService, file, userId)
+                .flatMap(imageUrl -> userService.updateProfileImageUrl(userId, imageUrl)
+                        .then(Mono.fromRunnable(() -> thumbnailService.generateVariants(imageUrl,
+                                variants -> blockingUserService.updateProfileImageVariants(userId, imageUrl, variants))))
+                        .thenReturn(imageUrl))
+                .map(imageUrl -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("message", "Profile image uploaded successfully");
+                    response.put("imageUrl", imageUrl);
+                    return response;
+                })
+                .doOnError(e -> logger.error("Error uploading profile image for user: {} - Error: {}", userId, e.getMessage()));
+    }
+
+    @PostMapping("/upload-avatar/{userId}")
+    public Mono<Map<String, String>> uploadAvatar(@PathVariable String userId, @RequestPart("file") FilePart file) {
+        logger.debug("Received avatar upload request for user: {}", userId);
+        return FileParts.store(fileUploadService, file, userId)
+                .flatMap(imageUrl -> userService.updateAvatarUrl(userId, imageUrl)
+                        .then(Mono.fromRunnable(() -> thumbnailService.generateVariants(imageUrl,
+                                variants -> blockingUserService.updateAvatarVariants(userId, imageUrl, variants))))
+                        .thenReturn(imageUrl))
+                .map(imageUrl -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("message", "Avatar uploaded successfully");
+                    response.put("avatarUrl", imageUrl);
+                    return response;
+                })
+                .doOnError(e -> logger.error("Error uploading avatar for user: {} - Error: {}", userId, e.getMessage()));
+    }
+}
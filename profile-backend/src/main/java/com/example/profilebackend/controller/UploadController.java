@@ -0,0 +1,259 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.service.FileUploadService;
+import com.example.profilebackend.service.StoredFileDeletedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves /uploads/** without going through the generic resource pipeline.
+ *
+ * File bodies are handed to Tomcat's sendfile support when the connector
+ * offers it, which is the only zero-copy path. Otherwise they are copied
+ * through the servlet output stream. Only committed, content-addressed files
+ * are served. Single byte ranges, If-None-Match and If-Modified-Since are
+ * honoured. File metadata is cached because uploads never change; entries
+ * are dropped when FileUploadService deletes the file.
+ */
+@Controller
+@Profile("!reactive")
+public class UploadController {
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+
+    private static final String PREFIX = "/uploads/";
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=\\s*([0-9]*)\\s*-\\s*([0-9]*)\\s*");
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    private final Path root;
+    private final Cache<Path, FileMetadata> metadata;
+
+    public UploadController(@Value("${upload.root:uploads}") String root,
+                            @Value("${upload.metadata-cache.max-entries:10000}") long maxEntries) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.metadata = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String relative = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length());
+        if (!FileUploadService.isStoredPath(relative)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path file = root.resolve(relative).normalize();
+        if (!file.startsWith(root)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        FileMetadata meta = lookup(file);
+        if (meta == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, meta.etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, meta.lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, meta)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = meta.size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(meta.etag))) {
+            long[] bounds = parseRange(range, meta.size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + meta.size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + meta.size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(meta.contentType);
+        response.setContentLengthLong(length);
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // Not zero-copy: the servlet stream is not a file or socket channel, so
+        // transferTo falls back to reading into a buffer and writing that out
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, target);
+            }
+            out.flush();
+        } catch (NoSuchFileException e) {
+            metadata.invalidate(file);
+            logger.warn("Upload disappeared while serving: {}", relative);
+        }
+    }
+
+    @EventListener
+    public void onStoredFileDeleted(StoredFileDeletedEvent event) {
+        if (event.getUrl().startsWith(PREFIX)) {
+            metadata.invalidate(root.resolve(event.getUrl().substring(PREFIX.length())).normalize());
+        }
+    }
+
+    private FileMetadata lookup(Path file) {
+        FileMetadata cached = metadata.getIfPresent(file);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            FileMetadata meta = new FileMetadata(file, attributes);
+            metadata.put(file, meta);
+            return meta;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, FileMetadata meta) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(meta.etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && meta.lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns {start, end} for a satisfiable single range, an empty array when
+     * the header should be ignored (multiple or malformed ranges, or a last
+     * position before the first) and null when the range is valid but cannot
+     * be satisfied (RFC 9110, section 14.2).
+     */
+    private static long[] parseRange(String header, long size) {
+        Matcher range = SINGLE_RANGE.matcher(header);
+        if (!range.matches() || (range.group(1).isEmpty() && range.group(2).isEmpty())) {
+            return new long[0];
+        }
+        long start;
+        long end;
+        if (range.group(1).isEmpty()) {
+            long suffix = position(range.group(2));
+            if (suffix == 0) {
+                return null;
+            }
+            start = Math.max(0, size - suffix);
+            end = size - 1;
+        } else {
+            start = position(range.group(1));
+            end = range.group(2).isEmpty() ? size - 1 : position(range.group(2));
+            if (start > end) {
+                return new long[0];
+            }
+            end = Math.min(end, size - 1);
+        }
+        if (start >= size) {
+            return null;
+        }
+        return new long[] {start, end};
+    }
+
+    // Digits only; a number too long for a long is past the end of any file anyway
+    private static long position(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static final class FileMetadata {
+        private final long size;
+        private final long lastModified;
+        private final String etag;
+        private final String contentType;
+
+        private FileMetadata(Path file, BasicFileAttributes attributes) {
+            String filename = file.getFileName().toString();
+            int dot = filename.lastIndexOf('.');
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.etag = "\"" + (dot > 0 ? filename.substring(0, dot) : filename) + "\"";
+            this.contentType = MediaTypeFactory.getMediaType(filename)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                    .toString();
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package com.example.profilebackend.controller;
 
+import com.example.profilebackend.dto.MutualFollowers;
+import com.example.profilebackend.dto.Relationship;
+import com.example.profilebackend.dto.SignupRequest;
+import com.example.profilebackend.dto.SuggestedUser;
+import com.example.profilebackend.dto.UserProfile;
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
 import com.example.profilebackend.model.User;
+import com.example.profilebackend.service.AvailabilityService;
 import com.example.profilebackend.service.UserService;
 import com.example.profilebackend.service.FileUploadService;
+import com.example.profilebackend.service.ThumbnailService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "http://localhost:3000")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_BATCH_IDS = 200;
+    private static final int MAX_STREAM_BATCH_SIZE = 5000;
+    private static final String NDJSON = "application/x-ndjson";
 
     @Autowired
     private UserService userService;
@@ -25,13 +51,22 @@ public class UserController {
     @Autowired
     private FileUploadService fileUploadService;
 
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/signup")
-    public ResponseEntity<User> signup(@RequestBody User user) {
-        logger.info("Received signup request for user: {}", user.getUsername());
+    public ResponseEntity<UserProfile> signup(@RequestBody SignupRequest user) {
+        logger.debug("Received signup request for user: {}", user.getUsername());
         try {
-            User createdUser = userService.signup(user);
-            logger.info("Successfully created user: {}", user.getUsername());
-            return ResponseEntity.ok(createdUser);
+            User createdUser = userService.signup(user.toUser());
+            logger.debug("Successfully created user: {}", user.getUsername());
+            return ResponseEntity.ok(UserProfile.from(createdUser));
         } catch (Exception e) {
             logger.error("Error during signup for user: {} - Error: {}", user.getUsername(), e.getMessage());
             throw e;
@@ -39,12 +74,12 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<User> login(@RequestBody LoginRequest loginRequest) {
-        logger.info("Received login request for user: {}", loginRequest.getUsername());
+    public ResponseEntity<UserProfile> login(@RequestBody LoginRequest loginRequest) {
+        logger.debug("Received login request for user: {}", loginRequest.getUsername());
         try {
             User loggedInUser = userService.login(loginRequest.getUsername(), loginRequest.getPassword());
-            logger.info("Successfully logged in user: {}", loginRequest.getUsername());
-            return ResponseEntity.ok(loggedInUser);
+            logger.debug("Successfully logged in user: {}", loginRequest.getUsername());
+            return ResponseEntity.ok(UserProfile.from(loggedInUser));
         } catch (Exception e) {
             logger.error("Error during login for user: {} - Error: {}", loginRequest.getUsername(), e.getMessage());
             throw e;
@@ -53,10 +88,10 @@ public class UserController {
 
     @PostMapping("/logout")
     public ResponseEntity<Void> logout() {
-        logger.info("Received logout request");
+        logger.debug("Received logout request");
         try {
             userService.logout();
-            logger.info("Successfully logged out user");
+            logger.debug("Successfully logged out user");
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Error during logout - Error: {}", e.getMessage());
@@ -64,27 +99,65 @@ public class UserController {
         }
     }
 
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        Map<String, Boolean> response = new HashMap<>();
+        if (username != null) {
+            response.put("username", availabilityService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            response.put("email", availabilityService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(response);
+    }
+
     // Profile endpoints
+    // Conditional GETs: a matching If-None-Match gets a 304 before any body is built
     @GetMapping("/profile/{userId}")
-    public ResponseEntity<User> getProfile(@PathVariable String userId) {
-        logger.info("Received get profile request for user: {}", userId);
+    public ResponseEntity<UserProfile> getProfile(@PathVariable String userId, WebRequest request) {
+        logger.debug("Received get profile request for user: {}", userId);
         try {
             User profile = userService.getProfile(userId);
-            logger.info("Successfully retrieved profile for user: {}", userId);
-            return ResponseEntity.ok(profile);
+            if (request.checkNotModified(UserProfile.etag(profile))) {
+                return null;
+            }
+            logger.debug("Successfully retrieved profile for user: {}", userId);
+            return ResponseEntity.ok(UserProfile.from(profile));
         } catch (Exception e) {
             logger.error("Error getting profile for user: {} - Error: {}", userId, e.getMessage());
             throw e;
         }
     }
 
+    // Batch lookup for list screens: /profiles?ids=a,b,c, returned in request order, unknown ids skipped
+    @GetMapping("/profiles")
+    public ResponseEntity<List<UserProfile>> getProfiles(@RequestParam List<String> ids) {
+        logger.debug("Received batch profile request for {} users", ids.size());
+        try {
+            requireBatchSize(ids);
+            List<UserProfile> profiles = userService.getProfiles(ids).stream()
+                    .map(UserProfile::from)
+                    .collect(Collectors.toList());
+            logger.debug("Successfully retrieved {} of {} profiles", profiles.size(), ids.size());
+            return ResponseEntity.ok(profiles);
+        } catch (Exception e) {
+            logger.error("Error getting {} profiles - Error: {}", ids.size(), e.getMessage());
+            throw e;
+        }
+    }
+
     @GetMapping("/profile/username/{username}")
-    public ResponseEntity<User> getProfileByUsername(@PathVariable String username) {
-        logger.info("Received get profile request for username: {}", username);
+    public ResponseEntity<UserProfile> getProfileByUsername(@PathVariable String username, WebRequest request) {
+        logger.debug("Received get profile request for username: {}", username);
         try {
             User profile = userService.getProfileByUsername(username);
-            logger.info("Successfully retrieved profile for username: {}", username);
-            return ResponseEntity.ok(profile);
+            if (request.checkNotModified(UserProfile.etag(profile))) {
+                return null;
+            }
+            logger.debug("Successfully retrieved profile for username: {}", username);
+            return ResponseEntity.ok(UserProfile.from(profile));
         } catch (Exception e) {
             logger.error("Error getting profile for username: {} - Error: {}", username, e.getMessage());
             throw e;
@@ -92,12 +165,12 @@ public class UserController {
     }
 
     @PutMapping("/profile/{userId}")
-    public ResponseEntity<User> updateProfile(@PathVariable String userId, @RequestBody User updatedUser) {
-        logger.info("Received update profile request for user: {}", userId);
+    public ResponseEntity<UserProfile> updateProfile(@PathVariable String userId, @RequestBody User updatedUser) {
+        logger.debug("Received update profile request for user: {}", userId);
         try {
             User updatedProfile = userService.updateProfile(userId, updatedUser);
-            logger.info("Successfully updated profile for user: {}", userId);
-            return ResponseEntity.ok(updatedProfile);
+            logger.debug("Successfully updated profile for user: {}", userId);
+            return ResponseEntity.ok(UserProfile.from(updatedProfile));
         } catch (Exception e) {
             logger.error("Error updating profile for user: {} - Error: {}", userId, e.getMessage());
             throw e;
@@ -107,10 +180,10 @@ public class UserController {
     // Follow system endpoints
     @PostMapping("/follow/{followerId}/{followingId}")
     public ResponseEntity<Void> followUser(@PathVariable String followerId, @PathVariable String followingId) {
-        logger.info("Received follow request: {} following {}", followerId, followingId);
+        logger.debug("Received follow request: {} following {}", followerId, followingId);
         try {
             userService.followUser(followerId, followingId);
-            logger.info("Successfully processed follow request: {} following {}", followerId, followingId);
+            logger.debug("Successfully processed follow request: {} following {}", followerId, followingId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Error processing follow request: {} following {} - Error: {}", followerId, followingId, e.getMessage());
@@ -120,10 +193,10 @@ public class UserController {
 
     @PostMapping("/unfollow/{followerId}/{followingId}")
     public ResponseEntity<Void> unfollowUser(@PathVariable String followerId, @PathVariable String followingId) {
-        logger.info("Received unfollow request: {} unfollowing {}", followerId, followingId);
+        logger.debug("Received unfollow request: {} unfollowing {}", followerId, followingId);
         try {
             userService.unfollowUser(followerId, followingId);
-            logger.info("Successfully processed unfollow request: {} unfollowing {}", followerId, followingId);
+            logger.debug("Successfully processed unfollow request: {} unfollowing {}", followerId, followingId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Error processing unfollow request: {} unfollowing {} - Error: {}", followerId, followingId, e.getMessage());
@@ -132,11 +205,19 @@ public class UserController {
     }
 
     @GetMapping("/followers/{userId}")
-    public ResponseEntity<List<User>> getFollowers(@PathVariable String userId) {
-        logger.info("Received get followers request for user: {}", userId);
+    public ResponseEntity<CursorPage<UserSummary>> getFollowers(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        logger.debug("Received get followers request for user: {}", userId);
         try {
-            List<User> followers = userService.getFollowers(userId);
-            logger.info("Successfully retrieved {} followers for user: {}", followers.size(), userId);
+            int pageSize = Math.min(size, MAX_PAGE_SIZE);
+            if (request.checkNotModified(userService.getFollowersVersion(userId, cursor, pageSize))) {
+                return null;
+            }
+            CursorPage<UserSummary> followers = userService.getFollowers(userId, cursor, pageSize);
+            logger.debug("Successfully retrieved {} followers for user: {}", followers.getItems().size(), userId);
             return ResponseEntity.ok(followers);
         } catch (Exception e) {
             logger.error("Error getting followers for user: {} - Error: {}", userId, e.getMessage());
@@ -145,11 +226,19 @@ public class UserController {
     }
 
     @GetMapping("/following/{userId}")
-    public ResponseEntity<List<User>> getFollowing(@PathVariable String userId) {
-        logger.info("Received get following request for user: {}", userId);
+    public ResponseEntity<CursorPage<UserSummary>> getFollowing(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        logger.debug("Received get following request for user: {}", userId);
         try {
-            List<User> following = userService.getFollowing(userId);
-            logger.info("Successfully retrieved {} following for user: {}", following.size(), userId);
+            int pageSize = Math.min(size, MAX_PAGE_SIZE);
+            if (request.checkNotModified(userService.getFollowingVersion(userId, cursor, pageSize))) {
+                return null;
+            }
+            CursorPage<UserSummary> following = userService.getFollowing(userId, cursor, pageSize);
+            logger.debug("Successfully retrieved {} following for user: {}", following.getItems().size(), userId);
             return ResponseEntity.ok(following);
         } catch (Exception e) {
             logger.error("Error getting following for user: {} - Error: {}", userId, e.getMessage());
@@ -157,13 +246,64 @@ public class UserController {
         }
     }
 
+    @GetMapping("/relationships/{viewerId}")
+    public ResponseEntity<List<Relationship>> getRelationships(
+            @PathVariable String viewerId,
+            @RequestParam List<String> ids) {
+        logger.debug("Received relationships request for viewer: {} and {} users", viewerId, ids.size());
+        try {
+            requireBatchSize(ids);
+            List<Relationship> relationships = userService.getRelationships(viewerId, ids);
+            logger.debug("Successfully retrieved {} relationships for viewer: {}", relationships.size(), viewerId);
+            return ResponseEntity.ok(relationships);
+        } catch (Exception e) {
+            logger.error("Error getting relationships for viewer: {} - Error: {}", viewerId, e.getMessage());
+            throw e;
+        }
+    }
+
+    @GetMapping("/suggestions/{userId}")
+    public ResponseEntity<List<SuggestedUser>> getSuggestions(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "20") int limit) {
+        logger.debug("Received suggestions request for user: {}", userId);
+        try {
+            List<SuggestedUser> suggestions = userService.getSuggestions(userId, Math.min(limit, MAX_SUGGESTIONS));
+            logger.debug("Successfully retrieved {} suggestions for user: {}", suggestions.size(), userId);
+            return ResponseEntity.ok(suggestions);
+        } catch (Exception e) {
+            logger.error("Error getting suggestions for user: {} - Error: {}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    @GetMapping("/mutuals/{viewerId}/{targetId}")
+    public ResponseEntity<MutualFollowers> getMutualFollowers(
+            @PathVariable String viewerId,
+            @PathVariable String targetId,
+            @RequestParam(defaultValue = "3") int limit) {
+        logger.debug("Received mutual followers request: {} viewing {}", viewerId, targetId);
+        try {
+            MutualFollowers mutuals = userService.getMutualFollowers(viewerId, targetId, Math.min(limit, MAX_PAGE_SIZE));
+            logger.debug("Successfully retrieved {} mutual followers: {} viewing {}", mutuals.getCount(), viewerId, targetId);
+            return ResponseEntity.ok(mutuals);
+        } catch (Exception e) {
+            logger.error("Error getting mutual followers: {} viewing {} - Error: {}", viewerId, targetId, e.getMessage());
+            throw e;
+        }
+    }
+
     // Search endpoints
     @GetMapping("/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String query) {
-        logger.info("Received search request with query: {}", query);
+    public ResponseEntity<List<UserSummary>> searchUsers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        logger.debug("Received search request with query: {}", query);
         try {
-            List<User> searchResults = userService.searchUsers(query);
-            logger.info("Successfully retrieved {} search results for query: {}", searchResults.size(), query);
+            List<UserSummary> searchResults = userService.searchUsers(query, prefix, offset, Math.min(limit, MAX_SEARCH_LIMIT));
+            logger.debug("Successfully retrieved {} search results for query: {}", searchResults.size(), query);
             return ResponseEntity.ok(searchResults);
         } catch (Exception e) {
             logger.error("Error searching users with query: {} - Error: {}", query, e.getMessage());
@@ -172,11 +312,11 @@ public class UserController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Received get all users request");
+    public ResponseEntity<List<UserSummary>> getAllUsers() {
+        logger.debug("Received get all users request");
         try {
-            List<User> allUsers = userService.getAllUsers();
-            logger.info("Successfully retrieved {} users", allUsers.size());
+            List<UserSummary> allUsers = userService.getAllUsers();
+            logger.debug("Successfully retrieved {} users", allUsers.size());
             return ResponseEntity.ok(allUsers);
         } catch (Exception e) {
             logger.error("Error getting all users - Error: {}", e.getMessage());
@@ -184,25 +324,54 @@ public class UserController {
         }
     }
 
+    // Same data as /all, written as newline-delimited JSON while the Mongo cursor is read
+    @GetMapping(value = "/all", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(
+            @RequestParam(defaultValue = "500") int batchSize) {
+        logger.debug("Received streaming get all users request");
+        ObjectWriter writer = objectMapper.writerFor(UserSummary.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        int cursorBatchSize = Math.max(1, Math.min(batchSize, MAX_STREAM_BATCH_SIZE));
+        StreamingResponseBody body = out -> {
+            long[] written = {0};
+            long count = userService.streamAllUsers(cursorBatchSize, user -> {
+                try {
+                    writer.writeValue(out, user);
+                    out.write('\n');
+                    if (++written[0] == 1 || written[0] % cursorBatchSize == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            logger.debug("Successfully streamed {} users", count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
     // File upload endpoints
     @PostMapping("/upload-profile-image/{userId}")
     public ResponseEntity<Map<String, String>> uploadProfileImage(
             @PathVariable String userId,
             @RequestParam("file") MultipartFile file) {
-        logger.info("Received profile image upload request for user: {}", userId);
+        logger.debug("Received profile image upload request for user: {}", userId);
         try {
             String imageUrl = fileUploadService.uploadProfileImage(file, userId);
             
-            // Update user's profile image URL
-            User user = userService.getProfile(userId);
-            user.setProfileImageUrl(imageUrl);
-            userService.updateProfile(userId, user);
+            // Update user's profile image URL, thumbnails follow in the background
+            userService.updateProfileImageUrl(userId, imageUrl);
+            thumbnailService.generateVariants(imageUrl,
+                    variants -> userService.updateProfileImageVariants(userId, imageUrl, variants));
             
             Map<String, String> response = new HashMap<>();
             response.put("message", "Profile image uploaded successfully");
             response.put("imageUrl", imageUrl);
             
-            logger.info("Successfully uploaded profile image for user: {}", userId);
+            logger.debug("Successfully uploaded profile image for user: {}", userId);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error uploading profile image for user: {} - Error: {}", userId, e.getMessage());
@@ -214,26 +383,32 @@ public class UserController {
     public ResponseEntity<Map<String, String>> uploadAvatar(
             @PathVariable String userId,
             @RequestParam("file") MultipartFile file) {
-        logger.info("Received avatar upload request for user: {}", userId);
+        logger.debug("Received avatar upload request for user: {}", userId);
         try {
             String imageUrl = fileUploadService.uploadProfileImage(file, userId);
             
-            // Update user's avatar URL
-            User user = userService.getProfile(userId);
-            user.setAvatarUrl(imageUrl);
-            userService.updateProfile(userId, user);
+            // Update user's avatar URL, thumbnails follow in the background
+            userService.updateAvatarUrl(userId, imageUrl);
+            thumbnailService.generateVariants(imageUrl,
+                    variants -> userService.updateAvatarVariants(userId, imageUrl, variants));
             
             Map<String, String> response = new HashMap<>();
             response.put("message", "Avatar uploaded successfully");
             response.put("avatarUrl", imageUrl);
             
-            logger.info("Successfully uploaded avatar for user: {}", userId);
+            logger.debug("Successfully uploaded avatar for user: {}", userId);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error uploading avatar for user: {} - Error: {}", userId, e.getMessage());
             throw e;
         }
     }
+
+    private static void requireBatchSize(List<String> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("At most " + MAX_BATCH_IDS + " ids per request");
+        }
+    }
 }
 
 class LoginRequest {
@@ -0,0 +1,15 @@
+package com.example.profilebackend.dto;
+
+import com.example.profilebackend.model.Post;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Home-feed entry: the post plus enough of its author to render the header
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedItem {
+    private Post post;
+    private UserSummary author;
+}
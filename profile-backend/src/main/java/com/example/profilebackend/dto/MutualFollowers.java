@@ -0,0 +1,15 @@
+package com.example.profilebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// "Followed by X, Y and N others you follow": a few named accounts plus the full count
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MutualFollowers {
+    private int count;
+    private List<UserSummary> users;
+}
@@ -0,0 +1,15 @@
+package com.example.profilebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Follow state between the viewer and userId, in both directions
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Relationship {
+    private String userId;
+    private boolean following;
+    private boolean followedBy;
+}
@@ -0,0 +1,22 @@
+package com.example.profilebackend.dto;
+
+import com.example.profilebackend.model.User;
+import lombok.Data;
+
+// The fields a client may choose at signup; ids, counters and image URLs are the server's
+@Data
+public class SignupRequest {
+    private String username;
+    private String email;
+    private String password;
+    private String name;
+
+    public User toUser() {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setName(name);
+        return user;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.profilebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// "People you may know" entry; mutualCount is how many accounts the viewer follows that follow this user
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestedUser {
+    private UserSummary user;
+    private int mutualCount;
+}
@@ -0,0 +1,13 @@
+package com.example.profilebackend.dto;
+
+import lombok.Data;
+
+// Starts a chunked upload; sha256 is the hex digest of the whole file, checked when it completes
+@Data
+public class UploadRequest {
+    private String filename;
+    private String contentType;
+    private long size;
+    private String sha256;
+    private String target;
+}
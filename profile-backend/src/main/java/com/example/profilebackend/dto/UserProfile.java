@@ -0,0 +1,60 @@
+package com.example.profilebackend.dto;
+
+import com.example.profilebackend.model.User;
+import lombok.Data;
+import org.springframework.util.DigestUtils;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Full profile view of a user, without credentials
+@Data
+public class UserProfile {
+    private String id;
+    private String name;
+    private String username;
+    private String email;
+    private String bio;
+    private String avatarUrl;
+    private String profileImageUrl;
+    private Map<String, String> avatarVariants;
+    private Map<String, String> profileImageVariants;
+    private boolean isPrivate;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int followersCount;
+    private int followingCount;
+    private int postsCount;
+
+    public static UserProfile from(User user) {
+        UserProfile profile = new UserProfile();
+        profile.setId(user.getId());
+        profile.setName(user.getName());
+        profile.setUsername(user.getUsername());
+        profile.setEmail(user.getEmail());
+        profile.setBio(user.getBio());
+        profile.setAvatarUrl(user.getAvatarUrl());
+        profile.setProfileImageUrl(user.getProfileImageUrl());
+        profile.setAvatarVariants(user.getAvatarVariants());
+        profile.setProfileImageVariants(user.getProfileImageVariants());
+        profile.setPrivate(user.isPrivate());
+        profile.setCreatedAt(user.getCreatedAt());
+        profile.setUpdatedAt(user.getUpdatedAt());
+        profile.setFollowersCount(user.getFollowersCount());
+        profile.setFollowingCount(user.getFollowingCount());
+        profile.setPostsCount(user.getPostsCount());
+        return profile;
+    }
+
+    /**
+     * Strong ETag for {@link #from}(user). Profile edits bump updatedAt; the
+     * counters and thumbnail maps change without it, so they are part of the
+     * version too.
+     */
+    public static String etag(User user) {
+        String version = user.getId() + '|' + user.getUpdatedAt()
+                + '|' + user.getFollowersCount() + '|' + user.getFollowingCount() + '|' + user.getPostsCount()
+                + '|' + user.getAvatarVariants() + '|' + user.getProfileImageVariants();
+        return "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.profilebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+// List entry for search, follower and directory endpoints; Mongo only returns these fields
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private String id;
+    private String username;
+    private String name;
+    private String avatarUrl;
+    private Map<String, String> avatarVariants;
+    private int followersCount;
+    private int followingCount;
+}
@@ -0,0 +1,17 @@
+package com.example.profilebackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items = new ArrayList<>();
+
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+}
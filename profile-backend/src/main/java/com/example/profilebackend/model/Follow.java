@@ -0,0 +1,32 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// One document per follow relationship; the _id gives a stable keyset order for paging
+@Data
+@NoArgsConstructor
+@Document(collection = "follows")
+@CompoundIndexes({
+    @CompoundIndex(name = "follower_following", def = "{'followerId': 1, 'followingId': 1}", unique = true),
+    @CompoundIndex(name = "following_page", def = "{'followingId': 1, '_id': 1}"),
+    @CompoundIndex(name = "follower_page", def = "{'followerId': 1, '_id': 1}")
+})
+public class Follow {
+    @Id
+    private String id;
+    private String followerId;
+    private String followingId;
+    private LocalDateTime createdAt;
+
+    public Follow(String followerId, String followingId) {
+        this.followerId = followerId;
+        this.followingId = followingId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+// Which node may run a cluster-wide job until expiresAt; the id names the job
+@Data
+@Document(collection = "job_leases")
+public class JobLease {
+    @Id
+    private String id;
+    private String owner;
+    private Instant expiresAt;
+}
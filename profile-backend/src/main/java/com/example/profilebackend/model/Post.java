@@ -0,0 +1,36 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// Ids are ObjectIds, so sorting them newest-first is the feed order and the paging cursor
+@Data
+@NoArgsConstructor
+@Document(collection = "posts")
+@CompoundIndexes({
+    @CompoundIndex(name = "author_page", def = "{'authorId': 1, '_id': -1}"),
+    @CompoundIndex(name = "pulled_authors", def = "{'fannedOut': 1, 'authorId': 1}")
+})
+public class Post {
+    @Id
+    private String id;
+    private String authorId;
+    private String caption;
+    private String imageUrl;
+    private LocalDateTime createdAt;
+
+    // False for posts by accounts above the fan-out threshold; those are merged in at read time
+    private boolean fannedOut;
+
+    public Post(String authorId, String caption, String imageUrl) {
+        this.authorId = authorId;
+        this.caption = caption;
+        this.imageUrl = imageUrl;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// Reference count for a content-addressed upload; the id is the stored filename
+@Data
+@Document(collection = "stored_files")
+public class StoredFile {
+    @Id
+    private String id;
+    private long refCount;
+    private long size;
+    private LocalDateTime createdAt;
+}
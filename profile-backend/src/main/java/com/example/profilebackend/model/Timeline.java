@@ -0,0 +1,16 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.ArrayList;
+import java.util.List;
+
+// Home-timeline buffer keyed by the reader's user id: newest post ids first, capped at feed.timeline.max-size
+@Data
+@Document(collection = "timelines")
+public class Timeline {
+    @Id
+    private String id;
+    private List<String> postIds = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// A chunked upload in progress; offset is how many bytes have been written so far
+@Data
+@NoArgsConstructor
+@Document(collection = "upload_sessions")
+public class UploadSession {
+    @Id
+    private String id;
+    @Indexed
+    private String userId;
+    private String filename;
+    private String contentType;
+    private long size;
+    private String sha256;
+    // "avatar" or "profile-image"; the user field it names takes the stored file's reference
+    private String target;
+    private long offset;
+    private LocalDateTime createdAt;
+
+    // Sessions nobody has written to for a day are dropped by Mongo
+    @Indexed(name = "idle_expiry", expireAfterSeconds = 86400)
+    private LocalDateTime updatedAt;
+}
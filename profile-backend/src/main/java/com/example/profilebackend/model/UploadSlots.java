@@ -0,0 +1,16 @@
+package com.example.profilebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.ArrayList;
+import java.util.List;
+
+// Upload sessions a user holds, keyed by the user id; capped at upload.chunked.max-sessions-per-user
+@Data
+@Document(collection = "upload_slots")
+public class UploadSlots {
+    @Id
+    private String id;
+    private List<String> sessionIds = new ArrayList<>();
+}
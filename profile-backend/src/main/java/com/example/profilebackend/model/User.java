@@ -2,10 +2,10 @@ package com.example.profilebackend.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Map;
 
 @Data
 @Document(collection = "users")
@@ -13,24 +13,32 @@ public class User {
     @Id
     private String id;
     private String name;
+    @Indexed(unique = true)
     private String username;
     private String password;
+    @Indexed(unique = true)
     private String email;
     
     // Profile fields
     private String bio;
     private String avatarUrl;
     private String profileImageUrl;
+    // Thumbnail URLs keyed by pixel size, filled in asynchronously after upload
+    private Map<String, String> avatarVariants;
+    private Map<String, String> profileImageVariants;
     private boolean isPrivate;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
-    // Follow system
-    private List<String> followers = new ArrayList<>();
-    private List<String> following = new ArrayList<>();
+    // Follow system (edges live in the follows collection)
     private int followersCount = 0;
     private int followingCount = 0;
+    // Version of the last FollowCounters flush applied to the two counts
+    private long countsVersion = 0;
     
-    // Posts count (for future use)
+    // Maintained by FeedService as posts are created
     private int postsCount = 0;
+    // Set by FeedService while this account's posts are merged into feeds at read time instead of fanned out
+    @Indexed(partialFilter = "{ 'pullAuthor': true }")
+    private boolean pullAuthor;
 } 
\ No newline at end of file
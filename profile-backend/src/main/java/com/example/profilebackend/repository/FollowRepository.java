@@ -0,0 +1,30 @@
+package com.example.profilebackend.repository;
+
+import com.example.profilebackend.model.Follow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FollowRepository extends MongoRepository<Follow, String> {
+    boolean existsByFollowerIdAndFollowingId(String followerId, String followingId);
+    long deleteByFollowerIdAndFollowingId(String followerId, String followingId);
+
+    long countByFollowerId(String followerId);
+    long countByFollowingId(String followingId);
+
+    // Which of the given accounts a user follows; served by the follower_following index
+    List<Follow> findByFollowerIdAndFollowingIdIn(String followerId, Collection<String> followingIds);
+
+    // Newest edge on each side, used with the counts as the version of follower/following lists
+    Optional<Follow> findFirstByFollowingIdOrderByIdDesc(String followingId);
+    Optional<Follow> findFirstByFollowerIdOrderByIdDesc(String followerId);
+
+    // Keyset paging: pass the last seen edge id as the cursor
+    List<Follow> findByFollowingIdOrderByIdAsc(String followingId, Pageable pageable);
+    List<Follow> findByFollowingIdAndIdGreaterThanOrderByIdAsc(String followingId, String cursor, Pageable pageable);
+    List<Follow> findByFollowerIdOrderByIdAsc(String followerId, Pageable pageable);
+    List<Follow> findByFollowerIdAndIdGreaterThanOrderByIdAsc(String followerId, String cursor, Pageable pageable);
+}
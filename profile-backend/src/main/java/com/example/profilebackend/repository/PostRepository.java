@@ -0,0 +1,16 @@
+package com.example.profilebackend.repository;
+
+import com.example.profilebackend.model.Post;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostRepository extends MongoRepository<Post, String> {
+    // Keyset paging, newest first: pass the last seen post id as the cursor
+    List<Post> findByAuthorIdOrderByIdDesc(String authorId, Pageable pageable);
+    List<Post> findByAuthorIdAndIdLessThanOrderByIdDesc(String authorId, String cursor, Pageable pageable);
+
+    List<Post> findByIdIn(Collection<String> ids);
+}
@@ -0,0 +1,20 @@
+package com.example.profilebackend.repository;
+
+import com.example.profilebackend.model.Follow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveFollowRepository extends ReactiveMongoRepository<Follow, String> {
+    Mono<Long> deleteByFollowerIdAndFollowingId(String followerId, String followingId);
+
+    Mono<Follow> findFirstByFollowingIdOrderByIdDesc(String followingId);
+    Mono<Follow> findFirstByFollowerIdOrderByIdDesc(String followerId);
+
+    // Keyset paging: pass the last seen edge id as the cursor
+    Flux<Follow> findByFollowingIdOrderByIdAsc(String followingId, Pageable pageable);
+    Flux<Follow> findByFollowingIdAndIdGreaterThanOrderByIdAsc(String followingId, String cursor, Pageable pageable);
+    Flux<Follow> findByFollowerIdOrderByIdAsc(String followerId, Pageable pageable);
+    Flux<Follow> findByFollowerIdAndIdGreaterThanOrderByIdAsc(String followerId, String cursor, Pageable pageable);
+}
@@ -0,0 +1,17 @@
+package com.example.profilebackend.repository;
+
+import com.example.profilebackend.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+    Mono<User> findByUsername(String username);
+    Mono<Boolean> existsByUsername(String username);
+    Mono<Boolean> existsByEmail(String email);
+
+    // DTO projections: only the fields of the given type are read from Mongo
+    <T> Flux<T> findByIdIn(Collection<String> ids, Class<T> type);
+}
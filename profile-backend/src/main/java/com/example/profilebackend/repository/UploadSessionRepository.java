@@ -0,0 +1,7 @@
+package com.example.profilebackend.repository;
+
+import com.example.profilebackend.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+}
@@ -3,10 +3,16 @@ package com.example.profilebackend.repository;
 import com.example.profilebackend.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // DTO projections: only the fields of the given type are read from Mongo
+    <T> List<T> findByIdIn(Collection<String> ids, Class<T> type);
+    <T> List<T> findAllBy(Class<T> type);
 } 
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username/email free?" from Bloom filters, confirming
+ * possible hits against Mongo. Signup itself relies on the unique indexes,
+ * so a stale filter can never let a duplicate through; at worst a name is
+ * reported free and the signup then fails.
+ *
+ * The filters are built after startup; until then every check goes to
+ * Mongo. Signups on this node are added immediately. Signups on other nodes
+ * are picked up by a periodic refresh that reads the users created since
+ * the last one (by ObjectId, so it is an _id index range scan), so for up to
+ * one refresh interval such a name can still be reported as free. The
+ * filters are rebuilt from scratch daily, resized to the user count.
+ */
+@Service
+public class AvailabilityService {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityService.class);
+
+    // ObjectIds carry the creating node's clock, so the refresh window reaches back this far
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    private volatile Filters filters;
+    private volatile Filters rebuilding;
+    private volatile boolean built;
+    // Creation time from which the next refresh reads users; guarded by this
+    private Instant refreshFrom;
+
+    public AvailabilityService(@Value("${availability.bloom.expected-users:1000000}") long expectedUsers,
+                               @Value("${availability.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = new Filters(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${availability.bloom.rebuild-interval-ms:86400000}",
+            fixedDelayString = "${availability.bloom.rebuild-interval-ms:86400000}")
+    public synchronized void rebuild() {
+        Instant started = Instant.now();
+        long userCount = mongoTemplate.count(new Query(), User.class);
+        Filters next = new Filters(Math.max(expectedUsers, userCount * 2), falsePositiveRate);
+        rebuilding = next;
+
+        Query query = new Query();
+        query.fields().include("username", "email");
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(next::add);
+        }
+        filters = next;
+        rebuilding = null;
+        refreshFrom = started;
+        built = true;
+        logger.info("Built availability filters for {} users", userCount);
+    }
+
+    // Adds users created on other nodes; re-reading the ones already added is harmless
+    @Scheduled(fixedDelayString = "${availability.bloom.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        if (!built) {
+            return;
+        }
+        Instant started = Instant.now();
+        Query query = new Query(Criteria.where("id").gte(new ObjectId(Date.from(refreshFrom.minus(CLOCK_SKEW)))));
+        query.fields().include("username", "email");
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(filters::add);
+        }
+        refreshFrom = started;
+    }
+
+    public void register(User user) {
+        filters.add(user);
+        Filters pending = rebuilding;
+        if (pending != null) {
+            pending.add(user);
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (built && !filters.usernames.mightContain(username)) {
+            return true;
+        }
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (built && !filters.emails.mightContain(email)) {
+            return true;
+        }
+        return !userRepository.existsByEmail(email);
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        private Filters(long expectedInsertions, double falsePositiveRate) {
+            this.usernames = new BloomFilter(expectedInsertions, falsePositiveRate);
+            this.emails = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+
+        private void add(User user) {
+            if (user.getUsername() != null) {
+                usernames.put(user.getUsername());
+            }
+            if (user.getEmail() != null) {
+                emails.put(user.getEmail());
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.dto.UploadRequest;
+import com.example.profilebackend.model.UploadSession;
+import com.example.profilebackend.model.UploadSlots;
+import com.example.profilebackend.repository.UploadSessionRepository;
+import com.example.profilebackend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resumable uploads sent as a sequence of chunks.
+ *
+ * A session records the declared size and SHA-256 and how many bytes have
+ * landed. Each chunk is streamed through a fixed-size buffer straight into
+ * the session's part file at its offset, so memory per upload is one buffer
+ * no matter how large the file is. If a chunk is cut off, the bytes that did
+ * reach the file still count and the client resumes from the stored offset.
+ * Completing an upload checks the digest and moves the part file into the
+ * content-addressed store of {@link FileUploadService}.
+ *
+ * Chunks are read with blocking I/O here; the WebFlux controller streams
+ * them without holding a thread, see {@link #begin} and {@link #finish}.
+ */
+@Service
+public class ChunkedUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+    private static final Duration ORPHAN_AGE = Duration.ofHours(1);
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    private final Path partDir;
+    private final long maxSize;
+    private final long maxChunkSize;
+    private final int maxSessionsPerUser;
+    private final int maxConcurrentPerUser;
+    private final Semaphore writers;
+    private final Map<String, AtomicInteger> writersByUser = new ConcurrentHashMap<>();
+    private final Set<String> busySessions = ConcurrentHashMap.newKeySet();
+
+    public ChunkedUploadService(@Value("${upload.chunked.dir:upload-parts}") String partDir,
+                                @Value("${upload.chunked.max-size:20971520}") long maxSize,
+                                @Value("${upload.chunked.max-chunk-size:8388608}") long maxChunkSize,
+                                @Value("${upload.chunked.max-sessions-per-user:3}") int maxSessionsPerUser,
+                                @Value("${upload.chunked.max-concurrent:64}") int maxConcurrent,
+                                @Value("${upload.chunked.max-concurrent-per-user:2}") int maxConcurrentPerUser) {
+        this.partDir = Paths.get(partDir);
+        this.maxSize = maxSize;
+        this.maxChunkSize = maxChunkSize;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.maxConcurrentPerUser = maxConcurrentPerUser;
+        this.writers = new Semaphore(maxConcurrent);
+        try {
+            Files.createDirectories(this.partDir);
+        } catch (IOException e) {
+            logger.error("Failed to create upload part directory: {}", e.getMessage());
+        }
+    }
+
+    public UploadSession create(String userId, UploadRequest request) {
+        logger.debug("Starting chunked upload for user: {}", userId);
+        if (request.getContentType() == null || !request.getContentType().startsWith("image/")) {
+            fileUploadService.recordError("content-type");
+            throw new RuntimeException("File must be an image");
+        }
+        if (request.getSize() <= 0 || request.getSize() > maxSize) {
+            fileUploadService.recordError("size");
+            throw new RuntimeException("File size must be between 1 and " + maxSize + " bytes");
+        }
+        if (request.getSha256() == null || !request.getSha256().matches("[0-9a-fA-F]{64}")) {
+            throw new RuntimeException("sha256 must be the hex SHA-256 of the file");
+        }
+        // The stored file's reference belongs to the target, so an upload without one would never be released
+        if (!"avatar".equals(request.getTarget()) && !"profile-image".equals(request.getTarget())) {
+            throw new RuntimeException("Upload target must be avatar or profile-image");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setUserId(userId);
+        session.setFilename(request.getFilename());
+        session.setContentType(request.getContentType());
+        session.setSize(request.getSize());
+        session.setSha256(request.getSha256().toLowerCase(Locale.ROOT));
+        session.setTarget(request.getTarget());
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(session.getCreatedAt());
+        session = uploadSessionRepository.insert(session);
+        // Inserted first, so a slot never names a session that is yet to exist and pruneSlots stays safe
+        if (!claimSlot(userId, session.getId()) && (pruneSlots(userId) == 0 || !claimSlot(userId, session.getId()))) {
+            uploadSessionRepository.deleteById(session.getId());
+            fileUploadService.recordError("too-many-sessions");
+            throw new RuntimeException("Too many uploads in progress");
+        }
+        return session;
+    }
+
+    // Adds the session to the user's slots unless they are full; a full document makes the upsert collide on the id
+    private boolean claimSlot(String userId, String uploadId) {
+        Query query = new Query(Criteria.where("id").is(userId)
+                .and("sessionIds." + (maxSessionsPerUser - 1)).exists(false));
+        try {
+            return mongoTemplate.findAndModify(query, new Update().addToSet("sessionIds", uploadId),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), UploadSlots.class) != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Frees the slots of sessions the idle TTL index dropped; returns how many were freed
+    private int pruneSlots(String userId) {
+        UploadSlots slots = mongoTemplate.findById(userId, UploadSlots.class);
+        if (slots == null || slots.getSessionIds().isEmpty()) {
+            return 0;
+        }
+        Query live = new Query(Criteria.where("id").in(slots.getSessionIds()));
+        live.fields().include("id");
+        List<String> gone = new ArrayList<>(slots.getSessionIds());
+        mongoTemplate.find(live, UploadSession.class).forEach(session -> gone.remove(session.getId()));
+        if (!gone.isEmpty()) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(userId)),
+                    new Update().pullAll("sessionIds", gone.toArray()), UploadSlots.class);
+        }
+        return gone.size();
+    }
+
+    // Deletes the session and then its slot; a crash in between leaves a slot pruneSlots can free
+    private void deleteSession(String uploadId) {
+        UploadSession removed = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(uploadId)), UploadSession.class);
+        if (removed != null) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(removed.getUserId())),
+                    new Update().pull("sessionIds", uploadId), UploadSlots.class);
+        }
+    }
+
+    public UploadSession status(String uploadId) {
+        return uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+    }
+
+    /**
+     * Streams one chunk from the request body into the part file, starting at
+     * offset, which must equal the session's current offset.
+     */
+    public UploadSession writeChunk(String uploadId, long offset, InputStream body) {
+        ChunkWrite write = begin(uploadId, offset);
+        try (FileChannel out = FileChannel.open(write.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ReadableByteChannel in = Channels.newChannel(body)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                write.reserve(buffer.remaining());
+                while (buffer.hasRemaining()) {
+                    write.written(out.write(buffer, write.position()));
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            fileUploadService.recordError("io");
+            logger.warn("Chunk for upload: {} stopped after {} bytes - Error: {}", uploadId, write.written, e.getMessage());
+            throw new RuntimeException("Failed to write chunk: " + e.getMessage());
+        } finally {
+            finish(write);
+        }
+        return write.session;
+    }
+
+    /**
+     * Claims the session for one chunk and takes the concurrency permits.
+     * Callers that stream the body themselves must call {@link #finish}.
+     */
+    public ChunkWrite begin(String uploadId, long offset) {
+        // Claimed before the offset is read, so it cannot move under a chunk that passed the check
+        if (!busySessions.add(uploadId)) {
+            throw new RuntimeException("Another chunk of this upload is in progress");
+        }
+        UploadSession session;
+        try {
+            session = status(uploadId);
+            if (offset != session.getOffset()) {
+                throw new RuntimeException("Offset mismatch: upload is at " + session.getOffset());
+            }
+        } catch (RuntimeException e) {
+            busySessions.remove(uploadId);
+            throw e;
+        }
+        AtomicInteger userWriters = writersByUser.computeIfAbsent(session.getUserId(), id -> new AtomicInteger());
+        if (userWriters.incrementAndGet() > maxConcurrentPerUser) {
+            release(session, userWriters);
+            fileUploadService.recordError("busy");
+            throw new RuntimeException("Too many concurrent uploads for this user");
+        }
+        if (!writers.tryAcquire()) {
+            release(session, userWriters);
+            fileUploadService.recordError("busy");
+            throw new RuntimeException("Too many concurrent uploads, try again later");
+        }
+        long limit = Math.min(maxChunkSize, session.getSize() - offset);
+        return new ChunkWrite(session, partDir.resolve(uploadId + PART_SUFFIX), limit);
+    }
+
+    // Records whatever reached the file, even if the chunk failed part-way, and frees the permits
+    public void finish(ChunkWrite write) {
+        try {
+            if (write.written > 0) {
+                Query query = new Query(Criteria.where("id").is(write.session.getId())
+                        .and("offset").is(write.session.getOffset()));
+                Update update = new Update()
+                        .inc("offset", write.written)
+                        .set("updatedAt", LocalDateTime.now());
+                UploadSession updated = mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().returnNew(true), UploadSession.class);
+                if (updated != null) {
+                    write.session = updated;
+                }
+            }
+        } finally {
+            writers.release();
+            release(write.session, writersByUser.get(write.session.getUserId()));
+        }
+    }
+
+    private void release(UploadSession session, AtomicInteger userWriters) {
+        if (userWriters != null && userWriters.decrementAndGet() == 0) {
+            writersByUser.remove(session.getUserId(), userWriters);
+        }
+        busySessions.remove(session.getId());
+    }
+
+    /**
+     * Verifies the digest of a fully written upload, stores it and applies it
+     * to the session's target. Returns the URL of the stored file.
+     */
+    public String complete(String uploadId) {
+        if (!busySessions.add(uploadId)) {
+            throw new RuntimeException("Another chunk of this upload is in progress");
+        }
+        Path part = partDir.resolve(uploadId + PART_SUFFIX);
+        try {
+            UploadSession session = status(uploadId);
+            if (session.getOffset() != session.getSize()) {
+                throw new RuntimeException("Upload is incomplete: " + session.getOffset() + " of " + session.getSize() + " bytes");
+            }
+            String digest = sha256(part);
+            if (!digest.equals(session.getSha256())) {
+                fileUploadService.recordError("checksum");
+                deleteQuietly(part);
+                deleteSession(uploadId);
+                throw new RuntimeException("Checksum mismatch, upload discarded");
+            }
+            String url = fileUploadService.commit(part, digest, FileUploadService.extensionOf(session.getFilename()),
+                    session.getSize(), session.getUserId());
+            deleteSession(uploadId);
+            applyToTarget(session, url);
+            return url;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            fileUploadService.recordError("io");
+            logger.error("Failed to complete upload: {} - Error: {}", uploadId, e.getMessage());
+            throw new RuntimeException("Failed to complete upload: " + e.getMessage());
+        } finally {
+            busySessions.remove(uploadId);
+        }
+    }
+
+    // Same follow-up as the multipart endpoints: set the URL now, thumbnails in the background.
+    // The reference commit took passes to the user; if it cannot be stored there it is given back.
+    private void applyToTarget(UploadSession session, String url) {
+        String userId = session.getUserId();
+        boolean avatar = "avatar".equals(session.getTarget());
+        try {
+            if (avatar) {
+                userService.updateAvatarUrl(userId, url);
+            } else {
+                userService.updateProfileImageUrl(userId, url);
+            }
+        } catch (RuntimeException e) {
+            fileUploadService.release(url);
+            throw e;
+        }
+        if (avatar) {
+            thumbnailService.generateVariants(url, variants -> userService.updateAvatarVariants(userId, url, variants));
+        } else {
+            thumbnailService.generateVariants(url, variants -> userService.updateProfileImageVariants(userId, url, variants));
+        }
+    }
+
+    public void abort(String uploadId) {
+        deleteSession(uploadId);
+        deleteQuietly(partDir.resolve(uploadId + PART_SUFFIX));
+    }
+
+    // Part files whose session was completed elsewhere, aborted or expired by the TTL index
+    @Scheduled(fixedDelayString = "${upload.chunked.cleanup-interval-ms:3600000}")
+    public void deleteOrphanedParts() {
+        Instant cutoff = Instant.now().minus(ORPHAN_AGE);
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(partDir, "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                String uploadId = part.getFileName().toString().replace(PART_SUFFIX, "");
+                if (Files.getLastModifiedTime(part).toInstant().isBefore(cutoff)
+                        && !uploadSessionRepository.existsById(uploadId)) {
+                    deleteQuietly(part);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to clean up upload parts - Error: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(Path file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete file: {} - Error: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * One chunk being written. The write position advances only by bytes that
+     * the file channel accepted.
+     */
+    public static final class ChunkWrite {
+        private UploadSession session;
+        private final Path file;
+        private final long limit;
+        private long reserved;
+        private long written;
+
+        private ChunkWrite(UploadSession session, Path file, long limit) {
+            this.session = session;
+            this.file = file;
+            this.limit = limit;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long position() {
+            return session.getOffset() + written;
+        }
+
+        // Called before bytes are written so an oversized chunk fails without touching the file
+        public void reserve(long bytes) {
+            reserved += bytes;
+            if (reserved > limit) {
+                throw new RuntimeException("Chunk is larger than the " + limit + " bytes allowed at this offset");
+            }
+        }
+
+        public void written(long bytes) {
+            written += bytes;
+        }
+
+        public UploadSession getSession() {
+            return session;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.dto.FeedItem;
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.Post;
+import com.example.profilebackend.model.Timeline;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.FollowRepository;
+import com.example.profilebackend.repository.PostRepository;
+import com.example.profilebackend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Posts and home timelines with hybrid fan-out.
+ *
+ * A new post is pushed into a capped timeline document of every follower
+ * (fan-out on write). Accounts with more than feed.fanout.max-followers
+ * followers are "pull authors": their posts are not pushed, and their recent
+ * post ids are merged into the feed when it is read. A feed read is one
+ * timeline lookup plus one indexed query for the pull authors the reader
+ * follows, never a scan over everyone they follow. An account that falls
+ * back below 90% of the threshold is demoted: its unpushed posts are fanned
+ * out once and later posts are pushed again.
+ *
+ * Whether an account is a pull author is stored on the user, and changed only
+ * by a conditional update, so exactly one node runs a demotion's catch-up.
+ * Each node keeps a copy of the set for feed reads and follow hooks, reloaded
+ * every feed.pull.refresh-interval-ms; until then a node may still push the
+ * posts of an account another node just promoted, which only costs writes.
+ * Authors with posts that were never pushed stay in the copy, so those posts
+ * are merged at read time until they are.
+ */
+@Service
+public class FeedService {
+    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    private final int timelineSize;
+    private final int fanoutThreshold;
+    private final int fanoutBatchSize;
+    private final int pullPosts;
+    private final ThreadPoolExecutor executor;
+    private final Lock[] edgeLocks = new Lock[64];
+
+    // Replaced on every refresh; promotions and demotions on this node also update it in between
+    private volatile Set<String> pullAuthors = ConcurrentHashMap.newKeySet();
+    private final Cache<String, List<String>> recentPullPosts;
+
+    public FeedService(@Value("${feed.timeline.max-size:800}") int timelineSize,
+                       @Value("${feed.fanout.max-followers:10000}") int fanoutThreshold,
+                       @Value("${feed.fanout.batch-size:1000}") int fanoutBatchSize,
+                       @Value("${feed.fanout.threads:2}") int threads,
+                       @Value("${feed.pull.max-posts:100}") int pullPosts) {
+        this.timelineSize = timelineSize;
+        this.fanoutThreshold = fanoutThreshold;
+        this.fanoutBatchSize = fanoutBatchSize;
+        this.pullPosts = pullPosts;
+        this.recentPullPosts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Callers run the task themselves when the queue is full, which slows posting down instead of dropping fan-out
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(10_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "fanout-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        for (int i = 0; i < edgeLocks.length; i++) {
+            edgeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Accounts already over the threshold, e.g. after it was lowered, are promoted when the node starts
+    @EventListener(ApplicationReadyEvent.class)
+    public void promotePopularAuthors() {
+        Query popular = new Query(Criteria.where("followersCount").gte(fanoutThreshold).and("pullAuthor").ne(true));
+        long promoted = mongoTemplate.updateMulti(popular, new Update().set("pullAuthor", true), User.class).getModifiedCount();
+        if (promoted > 0) {
+            logger.info("Switched {} users over {} followers to read-time merge", promoted, fanoutThreshold);
+        }
+        refreshPullAuthors();
+    }
+
+    @Scheduled(fixedDelayString = "${feed.pull.refresh-interval-ms:5000}")
+    public void refreshPullAuthors() {
+        try {
+            Query flagged = new Query(Criteria.where("pullAuthor").is(true));
+            flagged.fields().include("id");
+            Set<String> authors = ConcurrentHashMap.newKeySet();
+            mongoTemplate.find(flagged, User.class).forEach(user -> authors.add(user.getId()));
+            authors.addAll(mongoTemplate.findDistinct(
+                    new Query(Criteria.where("fannedOut").is(false)), "authorId", Post.class, String.class));
+            pullAuthors = authors;
+        } catch (Exception e) {
+            logger.error("Failed to reload pull authors - Error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a post. The caller's reference on imageUrl passes to the post,
+     * and is released here if the post cannot be created.
+     */
+    public Post createPost(String authorId, String caption, String imageUrl) {
+        logger.debug("Creating post for user: {}", authorId);
+        boolean pull;
+        Post savedPost;
+        try {
+            Query author = byId(authorId);
+            author.fields().include("pullAuthor");
+            User user = mongoTemplate.findOne(author, User.class);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
+            pull = user.isPullAuthor();
+            Post post = new Post(authorId, caption, imageUrl);
+            post.setFannedOut(!pull);
+            savedPost = postRepository.insert(post);
+        } catch (RuntimeException e) {
+            fileUploadService.release(imageUrl);
+            throw e;
+        }
+
+        mongoTemplate.updateFirst(byId(authorId), new Update().inc("postsCount", 1), User.class);
+        profileCache.invalidate(authorId);
+
+        // Authors see their own post immediately; followers get it as fan-out catches up
+        prepend(authorId, Collections.singletonList(savedPost.getId()));
+        if (pull) {
+            // The author may have been promoted on another node since this one's last refresh
+            pullAuthors.add(authorId);
+            recentPullPosts.invalidate(authorId);
+        } else {
+            executor.execute(() -> fanOut(authorId, Collections.singletonList(savedPost.getId())));
+        }
+        return savedPost;
+    }
+
+    // Timelines may keep the id until it is trimmed; feed reads skip it
+    public void deletePost(String authorId, String postId) {
+        logger.debug("Deleting post: {} of user: {}", postId, authorId);
+        Post removed = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(postId).and("authorId").is(authorId)), Post.class);
+        if (removed == null) {
+            throw new RuntimeException("Post not found");
+        }
+        mongoTemplate.updateFirst(byId(authorId), new Update().inc("postsCount", -1), User.class);
+        profileCache.invalidate(authorId);
+        if (!removed.isFannedOut()) {
+            recentPullPosts.invalidate(authorId);
+        }
+        fileUploadService.release(removed.getImageUrl());
+    }
+
+    public CursorPage<Post> getUserPosts(String userId, String cursor, int size) {
+        Pageable page = PageRequest.of(0, Math.max(size, 1) + 1);
+        List<Post> posts = cursor == null || cursor.isEmpty()
+                ? postRepository.findByAuthorIdOrderByIdDesc(userId, page)
+                : postRepository.findByAuthorIdAndIdLessThanOrderByIdDesc(userId, cursor, page);
+        boolean hasMore = posts.size() > Math.max(size, 1);
+        List<Post> pagePosts = hasMore ? posts.subList(0, posts.size() - 1) : posts;
+        return new CursorPage<>(pagePosts, hasMore ? pagePosts.get(pagePosts.size() - 1).getId() : null);
+    }
+
+    public CursorPage<FeedItem> getFeed(String userId, String cursor, int size) {
+        logger.debug("Getting feed for user: {} after cursor: {}", userId, cursor);
+        Timeline timeline = mongoTemplate.findById(userId, Timeline.class);
+        List<String> candidates = new ArrayList<>(timeline == null ? Collections.emptyList() : timeline.getPostIds());
+        if (!pullAuthors.isEmpty()) {
+            for (Follow edge : followRepository.findByFollowerIdAndFollowingIdIn(userId, pullAuthors)) {
+                candidates.addAll(recentPullPosts.get(edge.getFollowingId(), authorId -> recentPostIds(authorId, pullPosts)));
+            }
+        }
+
+        // Post ids are ObjectIds, so descending string order is newest first
+        List<String> ids = candidates.stream()
+                .filter(id -> cursor == null || cursor.isEmpty() || id.compareTo(cursor) < 0)
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .limit(Math.max(size, 1) + 1L)
+                .collect(Collectors.toList());
+        boolean hasMore = ids.size() > Math.max(size, 1);
+        List<String> pageIds = hasMore ? ids.subList(0, ids.size() - 1) : ids;
+        String nextCursor = hasMore ? pageIds.get(pageIds.size() - 1) : null;
+        return new CursorPage<>(feedItems(pageIds), nextCursor);
+    }
+
+    // Deleted posts may still be referenced by timelines; they are skipped here
+    private List<FeedItem> feedItems(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Post> postsById = postRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        Set<String> authorIds = postsById.values().stream().map(Post::getAuthorId).collect(Collectors.toSet());
+        Map<String, UserSummary> authorsById = userRepository.findByIdIn(authorIds, UserSummary.class).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+        return ids.stream()
+                .map(postsById::get)
+                .filter(post -> post != null)
+                .map(post -> new FeedItem(post, authorsById.get(post.getAuthorId())))
+                .collect(Collectors.toList());
+    }
+
+    // Follow-graph hooks, called by the user services after an edge is created or removed
+
+    public void onFollow(String followerId, String followingId) {
+        if (!pullAuthors.contains(followingId)) {
+            executor.execute(() -> syncEdge(followerId, followingId));
+        }
+    }
+
+    public void onUnfollow(String followerId, String followingId) {
+        if (!pullAuthors.contains(followingId)) {
+            executor.execute(() -> syncEdge(followerId, followingId));
+        }
+    }
+
+    /**
+     * Brings the follower's timeline in line with the edge as it is now, not
+     * as it was when the job was queued. The pool may run a follow and the
+     * unfollow after it out of order, so both jobs do the same thing, one
+     * pair at a time, and whichever runs last leaves the right posts behind.
+     */
+    private void syncEdge(String followerId, String followingId) {
+        Lock lock = edgeLocks[Math.floorMod(Objects.hash(followerId, followingId), edgeLocks.length)];
+        lock.lock();
+        try {
+            List<String> postIds = recentPostIds(followingId, timelineSize);
+            if (followRepository.existsByFollowerIdAndFollowingId(followerId, followingId)) {
+                prepend(followerId, postIds);
+            } else if (!postIds.isEmpty()) {
+                mongoTemplate.updateFirst(byId(followerId), new Update().pullAll("postIds", postIds.toArray()), Timeline.class);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to update timeline of: {} for: {} - Error: {}", followerId, followingId, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Promotes or demotes the author once its persisted count crosses a
+     * threshold. The gap between the thresholds keeps an account hovering
+     * around the limit from fanning out again and again. Only the node whose
+     * update flips the flag back runs the catch-up.
+     */
+    public void onFollowersCountChanged(String userId, int followersCount) {
+        if (followersCount >= fanoutThreshold && !pullAuthors.contains(userId)) {
+            if (setPullAuthor(userId, true)) {
+                logger.info("User {} reached {} followers, switching to read-time merge", userId, followersCount);
+            }
+            pullAuthors.add(userId);
+        } else if (followersCount < fanoutThreshold * 0.9 && pullAuthors.contains(userId)) {
+            pullAuthors.remove(userId);
+            if (setPullAuthor(userId, false)) {
+                logger.info("User {} dropped to {} followers, switching back to fan-out", userId, followersCount);
+                executor.execute(() -> pushPulledPosts(userId));
+            }
+        }
+    }
+
+    // True when this call changed the flag
+    private boolean setPullAuthor(String userId, boolean pull) {
+        Query query = new Query(Criteria.where("id").is(userId).and("pullAuthor").ne(pull));
+        return mongoTemplate.updateFirst(query, new Update().set("pullAuthor", pull), User.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * Pushes the posts made while the author was pulled, newest timeline's
+     * worth only: older ones would fall off every timeline anyway, so they are
+     * just marked. A post created while the demotion raced is still unpushed
+     * and is picked up by the next pass.
+     */
+    private void pushPulledPosts(String authorId) {
+        try {
+            List<String> postIds = pulledPostIds(authorId);
+            // Stops if the author was promoted again in the meantime, on any node
+            while (!postIds.isEmpty()
+                    && !mongoTemplate.exists(new Query(Criteria.where("id").is(authorId).and("pullAuthor").is(true)), User.class)) {
+                fanOut(authorId, postIds);
+                mongoTemplate.updateMulti(new Query(Criteria.where("authorId").is(authorId).and("fannedOut").is(false)
+                        .and("id").lte(postIds.get(0))), new Update().set("fannedOut", true), Post.class);
+                postIds = pulledPostIds(authorId);
+            }
+            recentPullPosts.invalidate(authorId);
+        } catch (Exception e) {
+            logger.error("Failed to push pulled posts of: {} - Error: {}", authorId, e.getMessage());
+        }
+    }
+
+    private List<String> pulledPostIds(String authorId) {
+        Query query = new Query(Criteria.where("authorId").is(authorId).and("fannedOut").is(false))
+                .with(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(timelineSize);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Post.class).stream().map(Post::getId).collect(Collectors.toList());
+    }
+
+    private void fanOut(String authorId, List<String> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        try {
+            Pageable page = PageRequest.of(0, fanoutBatchSize);
+            String cursor = null;
+            long delivered = 0;
+            List<Follow> edges;
+            do {
+                edges = cursor == null
+                        ? followRepository.findByFollowingIdOrderByIdAsc(authorId, page)
+                        : followRepository.findByFollowingIdAndIdGreaterThanOrderByIdAsc(authorId, cursor, page);
+                if (edges.isEmpty()) {
+                    break;
+                }
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Timeline.class);
+                edges.forEach(edge -> bulk.upsert(byId(edge.getFollowerId()), prependUpdate(postIds)));
+                bulk.execute();
+                delivered += edges.size();
+                cursor = edges.get(edges.size() - 1).getId();
+            } while (edges.size() == fanoutBatchSize);
+            logger.debug("Fanned out {} posts of {} to {} timelines", postIds.size(), authorId, delivered);
+        } catch (Exception e) {
+            logger.error("Failed to fan out posts of: {} - Error: {}", authorId, e.getMessage());
+        }
+    }
+
+    private void prepend(String userId, List<String> postIds) {
+        if (!postIds.isEmpty()) {
+            mongoTemplate.upsert(byId(userId), prependUpdate(postIds), Timeline.class);
+        }
+    }
+
+    // Keeps the buffer sorted newest first and trims it to the cap in the same write
+    private Update prependUpdate(List<String> postIds) {
+        return new Update().push("postIds")
+                .sort(Sort.Direction.DESC)
+                .slice(timelineSize)
+                .each(postIds.toArray());
+    }
+
+    private List<String> recentPostIds(String authorId, int limit) {
+        Query query = new Query(Criteria.where("authorId").is(authorId))
+                .with(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(limit);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Post.class).stream().map(Post::getId).collect(Collectors.toList());
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
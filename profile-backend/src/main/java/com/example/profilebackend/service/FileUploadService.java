@@ -1,24 +1,65 @@
 package com.example.profilebackend.service;
 
+import com.example.profilebackend.model.StoredFile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 @Service
 public class FileUploadService {
     private static final Logger logger = LoggerFactory.getLogger(FileUploadService.class);
+
+    // Committed files and their thumbnails, relative to the uploads root. Temp
+    // files live in the same directory and must never be served.
+    private static final Pattern STORED_PATH = Pattern.compile("profile-images/[0-9a-f]{64}(_[0-9]+)?\\.[a-z0-9]+");
+    // Extensions kept from the client's filename; anything else is stored as .jpg
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,8}");
     
     private final Path uploadDir = Paths.get("uploads/profile-images");
+
+    // Taking and dropping references to the same file never interleave, or a
+    // release could delete a file that a concurrent commit has just moved into place
+    private final Lock[] fileLocks = new Lock[64];
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     public FileUploadService() {
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new ReentrantLock();
+        }
         try {
             Files.createDirectories(uploadDir);
             logger.info("Created upload directory: {}", uploadDir.toAbsolutePath());
@@ -31,35 +72,186 @@ public class FileUploadService {
         logger.debug("Uploading profile image for user: {}", userId);
         
         if (file.isEmpty()) {
+            recordError("empty");
             throw new RuntimeException("File is empty");
         }
-        
+
+        try {
+            return storeProfileImage(file.getInputStream(), file.getContentType(), file.getOriginalFilename(), userId);
+        } catch (IOException e) {
+            recordError("io");
+            logger.error("Failed to upload profile image for user: {} - Error: {}", userId, e.getMessage());
+            throw new RuntimeException("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    public String storeProfileImage(InputStream content, String contentType, String originalFilename, String userId) {
         // Validate file type
-        String contentType = file.getContentType();
         if (contentType == null || !contentType.startsWith("image/")) {
+            recordError("content-type");
             throw new RuntimeException("File must be an image");
         }
         
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null ? 
-            originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-        String filename = userId + "_" + UUID.randomUUID().toString() + extension;
-        
+        String extension = extensionOf(originalFilename);
+        Path tempFile = null;
         try {
-            Path filePath = uploadDir.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            String fileUrl = "/uploads/profile-images/" + filename;
-            logger.info("Successfully uploaded profile image for user: {} to: {}", userId, fileUrl);
-            return fileUrl;
-            
-        } catch (IOException e) {
+            // Hash while streaming to disk, then store under the content hash
+            tempFile = Files.createTempFile(uploadDir, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return commit(tempFile, HexFormat.of().formatHex(digest.digest()), extension, size, userId);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            recordError("io");
             logger.error("Failed to upload profile image for user: {} - Error: {}", userId, e.getMessage());
             throw new RuntimeException("Failed to upload file: " + e.getMessage());
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Moves a complete file into content-addressed storage under its SHA-256
+     * and takes a reference on it. The file must be on the same filesystem as
+     * the upload directory.
+     */
+    String commit(Path file, String sha256, String extension, long size, String userId) throws IOException {
+        String filename = sha256 + extension;
+        Lock lock = lockFor(filename);
+        lock.lock();
+        try {
+            acquire(filename, size);
+            try {
+                Files.move(file, uploadDir.resolve(filename),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                // Nothing was moved, so only the reference is undone; the file of an existing record stays
+                Query query = new Query(Criteria.where("id").is(filename));
+                mongoTemplate.updateFirst(query, new Update().inc("refCount", -1), StoredFile.class);
+                mongoTemplate.remove(new Query(Criteria.where("id").is(filename).and("refCount").lte(0)), StoredFile.class);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        String fileUrl = urlFor(uploadDir.resolve(filename));
+        DistributionSummary.builder("uploads.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(size);
+        logger.debug("Successfully uploaded profile image for user: {} to: {}", userId, fileUrl);
+        return fileUrl;
+    }
+
+    /**
+     * Drops one reference to an uploaded file. The file and its thumbnails are
+     * deleted once nothing refers to them any more.
+     */
+    public void release(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith("/uploads/profile-images/")) {
+            return;
+        }
+        String filename = resolve(imageUrl).getFileName().toString();
+        Lock lock = lockFor(filename);
+        lock.lock();
+        try {
+            Query query = new Query(Criteria.where("id").is(filename));
+            mongoTemplate.updateFirst(query, new Update().inc("refCount", -1), StoredFile.class);
+
+            // Only delete if the record is still unreferenced when it is removed
+            Query unreferenced = new Query(Criteria.where("id").is(filename).and("refCount").lte(0));
+            if (mongoTemplate.remove(unreferenced, StoredFile.class).getDeletedCount() == 0) {
+                return;
+            }
+            deleteProfileImage(imageUrl);
+            eventPublisher.publishEvent(new StoredFileDeletedEvent(imageUrl));
+            String baseName = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(uploadDir, baseName + "_*")) {
+                for (Path variant : variants) {
+                    deleteQuietly(variant);
+                    eventPublisher.publishEvent(new StoredFileDeletedEvent(urlFor(variant)));
+                }
+            } catch (IOException e) {
+                logger.error("Failed to delete thumbnails of: {} - Error: {}", imageUrl, e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a finished thumbnail of a stored file into place. Runs under the
+     * lock release takes, so once a file is released none of its variants can
+     * appear afterwards. Returns false, leaving temp alone, when the file is
+     * no longer stored.
+     */
+    boolean moveVariant(String filename, Path temp, Path target) throws IOException {
+        Lock lock = lockFor(filename);
+        lock.lock();
+        try {
+            if (!mongoTemplate.exists(new Query(Criteria.where("id").is(filename)), StoredFile.class)) {
+                return false;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock lockFor(String filename) {
+        return fileLocks[Math.floorMod(filename.hashCode(), fileLocks.length)];
+    }
+
+    private void acquire(String filename, long size) {
+        Query query = new Query(Criteria.where("id").is(filename));
+        Update update = new Update()
+                .inc("refCount", 1)
+                .setOnInsert("size", size)
+                .setOnInsert("createdAt", LocalDateTime.now());
+        mongoTemplate.upsert(query, update, StoredFile.class);
+    }
+
+    void recordError(String reason) {
+        meterRegistry.counter("uploads.errors", "reason", reason).increment();
+    }
+
+    static String extensionOf(String originalFilename) {
+        if (originalFilename == null || originalFilename.lastIndexOf('.') < 0) {
+            return ".jpg";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? extension : ".jpg";
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete file: {} - Error: {}", path, e.getMessage());
         }
     }
     
+    public Path resolve(String imageUrl) {
+        String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+        return uploadDir.resolve(filename);
+    }
+
+    // True for paths below /uploads/ that name a committed file or thumbnail
+    public static boolean isStoredPath(String relativePath) {
+        return STORED_PATH.matcher(relativePath).matches();
+    }
+
+    public String urlFor(Path file) {
+        return "/uploads/profile-images/" + file.getFileName().toString();
+    }
+
     public void deleteProfileImage(String imageUrl) {
         if (imageUrl == null || imageUrl.isEmpty()) {
             return;
@@ -69,7 +261,7 @@ public class FileUploadService {
             String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
             Path filePath = uploadDir.resolve(filename);
             Files.deleteIfExists(filePath);
-            logger.info("Deleted profile image: {}", filename);
+            logger.debug("Deleted profile image: {}", filename);
         } catch (IOException e) {
             logger.error("Failed to delete profile image: {} - Error: {}", imageUrl, e.getMessage());
         }
@@ -0,0 +1,391 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.JobLease;
+import com.example.profilebackend.model.User;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for followersCount/followingCount.
+ *
+ * Follows and unfollows add their deltas to striped LongAdders in memory,
+ * so a burst of follows on one account no longer queues up on a single
+ * Mongo document. A scheduled flush drains the adders into a snapshot and
+ * applies the net deltas as one unordered bulk of $inc updates, which also
+ * raise each user's countsVersion to the snapshot's version.
+ *
+ * Profile reads add the deltas the document they were given does not
+ * include yet: everything still pending, plus every recent snapshot newer
+ * than the document's countsVersion. A document read before, during or after
+ * a flush therefore comes out with the same counts, and so does a cached one.
+ * List endpoints can lag by up to one flush interval.
+ *
+ * The versions are only meaningful to the node that wrote them. With several
+ * nodes, a read can miss this node's in-flight snapshot for the duration of
+ * one flush when another node flushed the same user with a later version.
+ *
+ * Counts that drifted anyway (a crash between inserting an edge and
+ * flushing its delta) are recomputed from the follows collection
+ * periodically, by whichever node holds the recount lease.
+ */
+@Component
+public class FollowCounters {
+    private static final Logger logger = LoggerFactory.getLogger(FollowCounters.class);
+
+    // Entries with no activity for this many flushes are dropped from the map,
+    // and snapshots are kept for as long so slow readers can still apply them
+    private static final int IDLE_FLUSHES = 3;
+    private static final int RECOUNT_BATCH = 500;
+    private static final String RECOUNT_LEASE = "follow-recount";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private FeedService feedService;
+
+    private final Map<String, Counts> pending = new ConcurrentHashMap<>();
+    // Removed entries get one more drain in case a writer still held a reference
+    private List<Map.Entry<String, Counts>> retired = new ArrayList<>();
+    // Seeded from the clock so versions keep increasing across restarts
+    private long version = System.currentTimeMillis();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Duration recountInterval;
+    private final long recountSettleMillis;
+
+    public FollowCounters(@Value("${follow.counters.recount-interval-ms:21600000}") long recountIntervalMillis,
+                          @Value("${follow.counters.recount-settle-ms:10000}") long recountSettleMillis) {
+        this.recountInterval = Duration.ofMillis(recountIntervalMillis);
+        this.recountSettleMillis = recountSettleMillis;
+    }
+
+    public void followed(String followerId, String followingId, int delta) {
+        pending.computeIfAbsent(followerId, id -> new Counts()).following.add(delta);
+        pending.computeIfAbsent(followingId, id -> new Counts()).followers.add(delta);
+    }
+
+    /**
+     * Returns the user with unflushed deltas applied. The argument may be a
+     * cached instance, so a copy is returned when there is anything to add.
+     */
+    public User overlay(User user) {
+        if (user == null) {
+            return null;
+        }
+        Counts counts = pending.get(user.getId());
+        if (counts == null) {
+            return user;
+        }
+        long followers;
+        long following;
+        synchronized (counts) {
+            followers = counts.followers.sum();
+            following = counts.following.sum();
+            for (Snapshot snapshot : counts.snapshots) {
+                if (snapshot.version > user.getCountsVersion()) {
+                    followers += snapshot.followers;
+                    following += snapshot.following;
+                }
+            }
+        }
+        if (followers == 0 && following == 0) {
+            return user;
+        }
+        User adjusted = new User();
+        BeanUtils.copyProperties(user, adjusted);
+        adjusted.setFollowersCount((int) (user.getFollowersCount() + followers));
+        adjusted.setFollowingCount((int) (user.getFollowingCount() + following));
+        return adjusted;
+    }
+
+    @Scheduled(fixedDelayString = "${follow.counters.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long flushVersion = ++version;
+        List<Map.Entry<String, Counts>> draining = new ArrayList<>(retired);
+        retired = new ArrayList<>();
+        for (Map.Entry<String, Counts> entry : pending.entrySet()) {
+            Counts counts = entry.getValue();
+            synchronized (counts) {
+                counts.snapshots.removeIf(snapshot -> snapshot.version <= flushVersion - IDLE_FLUSHES);
+            }
+            if (counts.followers.sum() == 0 && counts.following.sum() == 0) {
+                if (++counts.idleFlushes >= IDLE_FLUSHES && pending.remove(entry.getKey(), counts)) {
+                    retired.add(entry);
+                }
+                continue;
+            }
+            counts.idleFlushes = 0;
+            draining.add(entry);
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        Map<String, Snapshot> flushing = new HashMap<>();
+        for (Map.Entry<String, Counts> entry : draining) {
+            Counts counts = entry.getValue();
+            Snapshot snapshot;
+            // Under the lock so a read sees the deltas either in the adders or in the snapshot
+            synchronized (counts) {
+                snapshot = new Snapshot(flushVersion, counts.followers.sumThenReset(), counts.following.sumThenReset());
+                if (snapshot.followers == 0 && snapshot.following == 0) {
+                    continue;
+                }
+                counts.snapshots.add(snapshot);
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(entry.getKey())), new Update()
+                    .inc("followersCount", snapshot.followers)
+                    .inc("followingCount", snapshot.following)
+                    .max("countsVersion", flushVersion));
+            flushing.put(entry.getKey(), snapshot);
+        }
+        if (flushing.isEmpty()) {
+            return;
+        }
+
+        try {
+            bulk.execute();
+        } catch (Exception e) {
+            logger.error("Failed to flush follow counts for {} users - Error: {}", flushing.size(), e.getMessage());
+            // The bulk is unordered, so some updates may have applied; those
+            // carry this flush's version. Put the rest back for the next flush.
+            Set<String> applied = appliedUsers(flushing.keySet(), flushVersion);
+            applied.forEach(profileCache::invalidate);
+            for (Map.Entry<String, Counts> entry : draining) {
+                Snapshot snapshot = flushing.get(entry.getKey());
+                if (snapshot == null || applied.contains(entry.getKey())) {
+                    continue;
+                }
+                Counts counts = entry.getValue();
+                Counts current = pending.computeIfAbsent(entry.getKey(), id -> counts);
+                synchronized (counts) {
+                    counts.snapshots.remove(snapshot);
+                    current.followers.add(snapshot.followers);
+                    current.following.add(snapshot.following);
+                }
+            }
+            return;
+        }
+
+        // Cached documents predate the write; the snapshots cover them until they are reloaded
+        flushing.keySet().forEach(profileCache::invalidate);
+        refreshRankings(new ArrayList<>(flushing.keySet()));
+        logger.debug("Flushed follow counts for {} users", flushing.size());
+    }
+
+    private Set<String> appliedUsers(Set<String> userIds, long flushVersion) {
+        try {
+            Query query = new Query(Criteria.where("id").in(userIds).and("countsVersion").gte(flushVersion));
+            query.fields().include("id");
+            return mongoTemplate.find(query, User.class).stream().map(User::getId).collect(Collectors.toSet());
+        } catch (Exception e) {
+            logger.error("Failed to read back follow counts for {} users - Error: {}", userIds.size(), e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+    // Search ranking and the feed's pull-author threshold follow the persisted counts
+    private void refreshRankings(List<String> userIds) {
+        Query query = new Query(Criteria.where("id").in(userIds));
+        query.fields().include("followersCount");
+        for (User user : mongoTemplate.find(query, User.class)) {
+            userSearchIndex.updateFollowersCount(user.getId(), user.getFollowersCount());
+            feedService.onFollowersCountChanged(user.getId(), user.getFollowersCount());
+        }
+    }
+
+    /**
+     * Recomputes the counts of every user from the follows collection and
+     * corrects the ones that drifted. Only the node holding the lease runs it.
+     *
+     * An edge is inserted before its delta is buffered, so a user whose
+     * counts lag their edges may just have deltas in flight on some node. A
+     * mismatch is therefore checked twice, settle-ms apart, which must be
+     * longer than every node's flush interval: any delta in flight at the
+     * first check has been flushed by the second and has moved countsVersion.
+     * A correction is only written if countsVersion, the stored counts and
+     * the edge counts are all unchanged since the first check.
+     */
+    @Scheduled(initialDelayString = "${follow.counters.recount-interval-ms:21600000}",
+            fixedDelayString = "${follow.counters.recount-interval-ms:21600000}")
+    public void recount() {
+        if (!acquireLease(RECOUNT_LEASE, recountInterval)) {
+            logger.debug("Skipping follow recount, another node holds the lease");
+            return;
+        }
+        Query query = new Query();
+        query.fields().include("followersCount", "followingCount", "countsVersion");
+        List<User> batch = new ArrayList<>(RECOUNT_BATCH);
+        List<Drift> suspects = new ArrayList<>();
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == RECOUNT_BATCH || !iterator.hasNext()) {
+                    suspects.addAll(drifted(batch));
+                    batch.clear();
+                }
+            }
+        }
+        if (suspects.isEmpty()) {
+            return;
+        }
+        try {
+            Thread.sleep(recountSettleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        int corrected = 0;
+        for (int from = 0; from < suspects.size(); from += RECOUNT_BATCH) {
+            corrected += correct(suspects.subList(from, Math.min(from + RECOUNT_BATCH, suspects.size())));
+        }
+        if (corrected > 0) {
+            logger.warn("Corrected drifted follow counts for {} users", corrected);
+        }
+    }
+
+    private List<Drift> drifted(List<User> users) {
+        List<String> userIds = users.stream().map(User::getId).toList();
+        Map<String, Integer> followers = countEdges("followingId", userIds);
+        Map<String, Integer> following = countEdges("followerId", userIds);
+        List<Drift> drifted = new ArrayList<>();
+        for (User user : users) {
+            int expectedFollowers = followers.getOrDefault(user.getId(), 0);
+            int expectedFollowing = following.getOrDefault(user.getId(), 0);
+            if (user.getFollowersCount() != expectedFollowers || user.getFollowingCount() != expectedFollowing) {
+                drifted.add(new Drift(user, expectedFollowers, expectedFollowing));
+            }
+        }
+        return drifted;
+    }
+
+    private int correct(List<Drift> suspects) {
+        List<User> users = suspects.stream().map(drift -> drift.user).toList();
+        Map<String, Integer> followers = countEdges("followingId", users.stream().map(User::getId).toList());
+        Map<String, Integer> following = countEdges("followerId", users.stream().map(User::getId).toList());
+        int corrected = 0;
+        for (Drift drift : suspects) {
+            User user = drift.user;
+            if (followers.getOrDefault(user.getId(), 0) != drift.followers
+                    || following.getOrDefault(user.getId(), 0) != drift.following
+                    || pending.containsKey(user.getId())) {
+                continue;
+            }
+            Query unchanged = new Query(Criteria.where("id").is(user.getId())
+                    .and("countsVersion").is(user.getCountsVersion())
+                    .and("followersCount").is(user.getFollowersCount())
+                    .and("followingCount").is(user.getFollowingCount()));
+            Update counts = new Update()
+                    .set("followersCount", drift.followers)
+                    .set("followingCount", drift.following);
+            if (mongoTemplate.updateFirst(unchanged, counts, User.class).getModifiedCount() > 0) {
+                logger.debug("Recounted user {}: followers {} -> {}, following {} -> {}", user.getId(),
+                        user.getFollowersCount(), drift.followers, user.getFollowingCount(), drift.following);
+                profileCache.invalidate(user.getId());
+                userSearchIndex.updateFollowersCount(user.getId(), drift.followers);
+                feedService.onFollowersCountChanged(user.getId(), drift.followers);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    // Takes or renews the named lease; a live lease held by another node makes the upsert collide on the id
+    private boolean acquireLease(String name, Duration duration) {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("id").is(name)
+                .orOperator(Criteria.where("owner").is(nodeId), Criteria.where("expiresAt").lt(now)));
+        Update update = new Update().set("owner", nodeId).set("expiresAt", now.plus(duration));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private Map<String, Integer> countEdges(String field, List<String> userIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(field).in(userIds)),
+                Aggregation.group(field).count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Follow.class, Document.class)) {
+            counts.put(group.getString("_id"), group.getInteger("count"));
+        }
+        return counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Counts {
+        private final LongAdder followers = new LongAdder();
+        private final LongAdder following = new LongAdder();
+        // Drained deltas of the last few flushes, guarded by this Counts
+        private final List<Snapshot> snapshots = new ArrayList<>();
+        private int idleFlushes;
+    }
+
+    // Counts as read from the user document, and the counts its edges add up to
+    private static final class Drift {
+        private final User user;
+        private final int followers;
+        private final int following;
+
+        private Drift(User user, int followers, int following) {
+            this.user = user;
+            this.followers = followers;
+            this.following = following;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final long followers;
+        private final long following;
+
+        private Snapshot(long version, long followers, long following) {
+            this.version = version;
+            this.followers = followers;
+            this.following = following;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.Follow;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process copy of the follow graph for suggestions and mutual followers.
+ *
+ * User ids are mapped to dense ints in first-seen order and each user's
+ * followers and following are kept as Roaring bitmaps, so "who of the people
+ * I follow also follows X" is one bitmap intersection. The index is rebuilt
+ * from the follows collection at startup and kept current by the user
+ * services; like the search index it only sees follows made on this node.
+ */
+@Component
+public class FollowGraphIndex {
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraphIndex.class);
+
+    private static final int REBUILD_BATCH = 10_000;
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final int maxSources;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> userIds = new ArrayList<>();
+    private final List<RoaringBitmap> followers = new ArrayList<>();
+    private final List<RoaringBitmap> following = new ArrayList<>();
+
+    public FollowGraphIndex(@Value("${graph.suggestions.max-sources:1000}") int maxSources) {
+        this.maxSources = maxSources;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        logger.info("Building follow graph index");
+        Query query = new Query();
+        query.fields().include("followerId", "followingId");
+        List<Follow> batch = new ArrayList<>(REBUILD_BATCH);
+        long edges = 0;
+        try (Stream<Follow> follows = mongoTemplate.stream(query, Follow.class)) {
+            Iterator<Follow> iterator = follows.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == REBUILD_BATCH || !iterator.hasNext()) {
+                    addAll(batch);
+                    edges += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            followers.forEach(RoaringBitmap::runOptimize);
+            following.forEach(RoaringBitmap::runOptimize);
+            logger.info("Indexed {} follow edges between {} users", edges, userIds.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addAll(List<Follow> edges) {
+        lock.writeLock().lock();
+        try {
+            edges.forEach(edge -> link(edge.getFollowerId(), edge.getFollowingId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void follow(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            link(followerId, followingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unfollow(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            Integer follower = ordinals.get(followerId);
+            Integer followed = ordinals.get(followingId);
+            if (follower != null && followed != null) {
+                following.get(follower).remove(followed);
+                followers.get(followed).remove(follower);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Accounts followed by the people userId follows, ranked by how many of
+     * them follow each account, then by follower count. Only the first
+     * graph.suggestions.max-sources accounts userId follows are expanded.
+     */
+    public List<Suggestion> suggestions(String userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer user = ordinals.get(userId);
+            if (user == null || limit <= 0) {
+                return Collections.emptyList();
+            }
+            RoaringBitmap followed = following.get(user);
+            if (followed.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<RoaringBitmap> secondHop = new ArrayList<>();
+            followed.limit(maxSources).forEach((int source) -> secondHop.add(following.get(source)));
+            RoaringBitmap candidates = FastAggregation.or(secondHop.iterator());
+            candidates.andNot(followed);
+            candidates.remove(user);
+
+            // Min-heap of the best `limit` candidates seen so far
+            Comparator<Suggestion> rank = Comparator.comparingInt(Suggestion::getMutualCount)
+                    .thenComparingInt(suggestion -> suggestion.followersCount);
+            PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, rank);
+            IntIterator iterator = candidates.getIntIterator();
+            while (iterator.hasNext()) {
+                int candidate = iterator.next();
+                RoaringBitmap candidateFollowers = followers.get(candidate);
+                Suggestion suggestion = new Suggestion(userIds.get(candidate),
+                        RoaringBitmap.andCardinality(followed, candidateFollowers),
+                        candidateFollowers.getCardinality());
+                best.add(suggestion);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Suggestion> ranked = new ArrayList<>(best);
+            ranked.sort(rank.reversed());
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Followers of targetId that viewerId follows: "followed by X and Y"
+    public List<String> mutualFollowers(String viewerId, String targetId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap mutuals = RoaringBitmap.and(followingOf(viewerId), followersOf(targetId));
+            List<String> ids = new ArrayList<>();
+            IntIterator iterator = mutuals.getIntIterator();
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add(userIds.get(iterator.next()));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int mutualFollowerCount(String viewerId, String targetId) {
+        lock.readLock().lock();
+        try {
+            return RoaringBitmap.andCardinality(followingOf(viewerId), followersOf(targetId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap followingOf(String userId) {
+        Integer ordinal = ordinals.get(userId);
+        return ordinal == null ? EMPTY : following.get(ordinal);
+    }
+
+    private RoaringBitmap followersOf(String userId) {
+        Integer ordinal = ordinals.get(userId);
+        return ordinal == null ? EMPTY : followers.get(ordinal);
+    }
+
+    // Callers hold the write lock
+    private void link(String followerId, String followingId) {
+        int follower = ordinal(followerId);
+        int followed = ordinal(followingId);
+        following.get(follower).add(followed);
+        followers.get(followed).add(follower);
+    }
+
+    private int ordinal(String userId) {
+        Integer existing = ordinals.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = userIds.size();
+        ordinals.put(userId, ordinal);
+        userIds.add(userId);
+        followers.add(new RoaringBitmap());
+        following.add(new RoaringBitmap());
+        return ordinal;
+    }
+
+    public static final class Suggestion {
+        private final String userId;
+        private final int mutualCount;
+        private final int followersCount;
+
+        private Suggestion(String userId, int mutualCount, int followersCount) {
+            this.userId = userId;
+            this.mutualCount = mutualCount;
+            this.followersCount = followersCount;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public int getMutualCount() {
+            return mutualCount;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.FollowRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Moves the follower/following arrays that used to be embedded in user
+ * documents into the follows collection, recomputes the counters from the
+ * edges and strips the arrays. Safe to re-run: edges are upserted and users
+ * without the legacy fields are skipped.
+ */
+@Component
+public class FollowGraphMigration implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraphMigration.class);
+
+    private static final String USERS = "users";
+    private static final String LEGACY_FOLLOWERS = "followers";
+    private static final String LEGACY_FOLLOWING = "following";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Criteria legacy = new Criteria().orOperator(
+                Criteria.where(LEGACY_FOLLOWERS).exists(true),
+                Criteria.where(LEGACY_FOLLOWING).exists(true));
+        Query query = new Query(legacy);
+        query.fields().include(LEGACY_FOLLOWERS, LEGACY_FOLLOWING);
+
+        Set<String> touched = new HashSet<>();
+        try (Stream<Document> users = mongoTemplate.stream(query, Document.class, USERS)) {
+            users.forEach(user -> migrate(user, touched));
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+
+        logger.info("Migrated embedded follow lists, recomputing counts for {} users", touched.size());
+        for (String userId : touched) {
+            Update counts = new Update()
+                    .set("followersCount", followRepository.countByFollowingId(userId))
+                    .set("followingCount", followRepository.countByFollowerId(userId));
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(userId)), counts, User.class);
+        }
+        mongoTemplate.updateMulti(new Query(legacy),
+                new Update().unset(LEGACY_FOLLOWERS).unset(LEGACY_FOLLOWING), USERS);
+        logger.info("Follow graph migration complete");
+    }
+
+    private void migrate(Document user, Set<String> touched) {
+        String userId = user.get("_id").toString();
+        List<String> followers = user.getList(LEGACY_FOLLOWERS, String.class, Collections.emptyList());
+        List<String> following = user.getList(LEGACY_FOLLOWING, String.class, Collections.emptyList());
+        touched.add(userId);
+        if (followers.isEmpty() && following.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Follow.class);
+        for (String followerId : followers) {
+            bulk.upsert(edge(followerId, userId), onInsert());
+            touched.add(followerId);
+        }
+        for (String followingId : following) {
+            bulk.upsert(edge(userId, followingId), onInsert());
+            touched.add(followingId);
+        }
+        bulk.execute();
+    }
+
+    private static Query edge(String followerId, String followingId) {
+        return new Query(Criteria.where("followerId").is(followerId).and("followingId").is(followingId));
+    }
+
+    private static Update onInsert() {
+        return new Update().setOnInsert("createdAt", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for user profiles, addressable by ID and by username.
+ *
+ * Caffeine's W-TinyLFU policy keeps frequently read profiles resident, and
+ * entries are weighed by an estimate of their size so the cache is bounded
+ * in bytes rather than in entries. Writers must call {@link #put} or
+ * {@link #invalidate} for every user they modify.
+ *
+ * Puts are versioned: callers take a {@link #stamp} before reading the
+ * document, and a put whose user was invalidated in the meantime is dropped,
+ * so a slow reader cannot re-cache a document older than a concurrent write.
+ */
+@Component
+public class ProfileCache implements MeterBinder {
+    private final Cache<String, User> usersById;
+    private final Cache<String, String> idsByUsername;
+    // Ticks once per invalidation; each stripe of user IDs remembers its latest tick
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(256);
+
+    public ProfileCache(@Value("${profile.cache.max-bytes:67108864}") long maxBytes,
+                        @Value("${profile.cache.max-usernames:200000}") long maxUsernames) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, User user) -> estimateBytes(user))
+                .recordStats()
+                .build();
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maxUsernames)
+                .build();
+    }
+
+    public User getById(String userId, Function<String, User> loader) {
+        return usersById.get(userId, loader);
+    }
+
+    public User getByUsername(String username, Supplier<User> loader) {
+        User cached = getIfPresentByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp();
+        User user = loader.get();
+        if (user != null) {
+            put(user, stamp);
+        }
+        return user;
+    }
+
+    // Non-loading lookups for callers that fetch misses themselves
+    public User getIfPresent(String userId) {
+        return usersById.getIfPresent(userId);
+    }
+
+    public User getIfPresentByUsername(String username) {
+        String userId = idsByUsername.getIfPresent(username);
+        User cached = userId == null ? null : usersById.getIfPresent(userId);
+        return cached != null && username.equals(cached.getUsername()) ? cached : null;
+    }
+
+    // Take before reading the document that will be passed to put
+    public long stamp() {
+        return clock.get();
+    }
+
+    public void put(User user, long stamp) {
+        usersById.put(user.getId(), user);
+        idsByUsername.put(user.getUsername(), user.getId());
+        // Checked after the put: an invalidation that is already recorded is
+        // undone here, one that is not yet recorded removes the entry itself
+        if (invalidatedAt.get(stripe(user.getId())) > stamp) {
+            usersById.invalidate(user.getId());
+        }
+    }
+
+    public void invalidate(String userId) {
+        invalidatedAt.accumulateAndGet(stripe(userId), clock.incrementAndGet(), Math::max);
+        usersById.invalidate(userId);
+    }
+
+    // Hit/miss/eviction meters tagged cache=profiles, picked up by Spring Boot as a MeterBinder
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, usersById, "profiles");
+        Gauge.builder("cache.size", idsByUsername, Cache::estimatedSize)
+                .tag("cache", "profile-usernames")
+                .register(registry);
+    }
+
+    private int stripe(String key) {
+        return Math.floorMod(key.hashCode(), invalidatedAt.length());
+    }
+
+    // Rough heap footprint: object headers plus two bytes per character
+    private static int estimateBytes(User user) {
+        int chars = length(user.getId()) + length(user.getName()) + length(user.getUsername())
+                + length(user.getPassword()) + length(user.getEmail()) + length(user.getBio())
+                + length(user.getAvatarUrl()) + length(user.getProfileImageUrl());
+        return 256 + chars * 2;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
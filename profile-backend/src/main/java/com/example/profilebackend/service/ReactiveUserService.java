@@ -0,0 +1,344 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.dto.MutualFollowers;
+import com.example.profilebackend.dto.Relationship;
+import com.example.profilebackend.dto.SuggestedUser;
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.ReactiveFollowRepository;
+import com.example.profilebackend.repository.ReactiveUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link UserService} used by the reactive
+ * profile. It shares the search index, profile cache and upload storage with
+ * the blocking stack and keeps the same semantics for every operation.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserService.class);
+    private static final String USERS_COLLECTION = "users";
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveFollowRepository followRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FollowCounters followCounters;
+
+    @Autowired
+    private FollowGraphIndex followGraphIndex;
+
+    public Mono<User> signup(User user) {
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        user.setPrivate(false);
+        return userRepository.insert(user)
+                .onErrorMap(DuplicateKeyException.class, e -> UserService.duplicateSignup(user, e))
+                .doOnNext(savedUser -> {
+                    userSearchIndex.index(savedUser);
+                    availabilityService.register(savedUser);
+                });
+    }
+
+    public Mono<User> login(String username, String password) {
+        return userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .flatMap(user -> {
+                    if (!user.getPassword().equals(password)) {
+                        logger.warn("Login failed - Invalid password for user: {}", username);
+                        return Mono.error(new RuntimeException("Invalid password"));
+                    }
+                    return Mono.just(followCounters.overlay(user));
+                });
+    }
+
+    public Mono<User> getProfile(String userId) {
+        return Mono.justOrEmpty(profileCache.getIfPresent(userId))
+                .switchIfEmpty(Mono.defer(() -> {
+                    long stamp = profileCache.stamp();
+                    return userRepository.findById(userId).doOnNext(user -> profileCache.put(user, stamp));
+                }))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .map(followCounters::overlay);
+    }
+
+    public Mono<List<User>> getProfiles(List<String> userIds) {
+        List<String> distinctIds = userIds.stream().distinct().collect(Collectors.toList());
+        List<User> cached = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (String userId : distinctIds) {
+            User user = profileCache.getIfPresent(userId);
+            if (user != null) {
+                cached.add(user);
+            } else {
+                misses.add(userId);
+            }
+        }
+        Flux<User> loaded = misses.isEmpty()
+                ? Flux.empty()
+                : Flux.defer(() -> {
+                    long stamp = profileCache.stamp();
+                    return userRepository.findAllById(misses).doOnNext(user -> profileCache.put(user, stamp));
+                });
+        return Flux.fromIterable(cached).concatWith(loaded)
+                .collectMap(User::getId)
+                .map(usersById -> distinctIds.stream()
+                        .map(usersById::get)
+                        .filter(Objects::nonNull)
+                        .map(followCounters::overlay)
+                        .collect(Collectors.toList()));
+    }
+
+    public Mono<User> getProfileByUsername(String username) {
+        return Mono.justOrEmpty(profileCache.getIfPresentByUsername(username))
+                .switchIfEmpty(Mono.defer(() -> {
+                    long stamp = profileCache.stamp();
+                    return userRepository.findByUsername(username).doOnNext(user -> profileCache.put(user, stamp));
+                }))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .map(followCounters::overlay);
+    }
+
+    public Mono<User> updateProfile(String userId, User updatedUser) {
+        Update update = UserService.profileUpdate(updatedUser).set("updatedAt", LocalDateTime.now());
+        return Mono.defer(() -> {
+                    long stamp = profileCache.stamp();
+                    return mongoTemplate.findAndModify(byId(userId), update,
+                                    FindAndModifyOptions.options().returnNew(true), User.class)
+                            .doOnNext(savedUser -> profileCache.put(savedUser, stamp));
+                })
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .doOnNext(userSearchIndex::index)
+                .map(followCounters::overlay);
+    }
+
+    public Mono<Void> updateAvatarUrl(String userId, String avatarUrl) {
+        return replaceImage(userId, "avatarUrl", new Update().set("avatarUrl", avatarUrl).unset("avatarVariants"))
+                .flatMap(previous -> release(previous.getAvatarUrl()));
+    }
+
+    public Mono<Void> updateProfileImageUrl(String userId, String profileImageUrl) {
+        return replaceImage(userId, "profileImageUrl",
+                        new Update().set("profileImageUrl", profileImageUrl).unset("profileImageVariants"))
+                .flatMap(previous -> release(previous.getProfileImageUrl()));
+    }
+
+    // Blocking MongoTemplate calls and file deletes, kept off the event loop
+    private Mono<Void> release(String imageUrl) {
+        return Mono.<Void>fromRunnable(() -> fileUploadService.release(imageUrl))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<User> replaceImage(String userId, String field, Update update) {
+        Query query = byId(userId);
+        query.fields().include(field);
+        return mongoTemplate.findAndModify(query, update.set("updatedAt", LocalDateTime.now()),
+                        FindAndModifyOptions.options().returnNew(false), User.class)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .doOnNext(previous -> profileCache.invalidate(userId));
+    }
+
+    // The feed hooks may run fan-out on the calling thread when the fan-out
+    // pool is saturated, so they are invoked from boundedElastic
+    public Mono<Void> followUser(String followerId, String followingId) {
+        if (followerId.equals(followingId)) {
+            return Mono.error(new RuntimeException("Cannot follow yourself"));
+        }
+        return requireUser(followerId, "Follower not found")
+                .then(requireUser(followingId, "User to follow not found"))
+                .then(followRepository.insert(new Follow(followerId, followingId))
+                        .map(edge -> true)
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false)))
+                .flatMap(created -> created
+                        ? adjustFollowCounts(followerId, followingId, 1)
+                                .then(Mono.<Void>fromRunnable(() -> {
+                                    followGraphIndex.follow(followerId, followingId);
+                                    feedService.onFollow(followerId, followingId);
+                                }).subscribeOn(Schedulers.boundedElastic()))
+                        : Mono.<Void>empty());
+    }
+
+    public Mono<Void> unfollowUser(String followerId, String followingId) {
+        return followRepository.deleteByFollowerIdAndFollowingId(followerId, followingId)
+                .flatMap(deleted -> deleted > 0
+                        ? adjustFollowCounts(followerId, followingId, -1)
+                                .then(Mono.<Void>fromRunnable(() -> {
+                                    followGraphIndex.unfollow(followerId, followingId);
+                                    feedService.onUnfollow(followerId, followingId);
+                                }).subscribeOn(Schedulers.boundedElastic()))
+                        : Mono.<Void>empty());
+    }
+
+    // Counts are buffered and written behind by the shared FollowCounters
+    private Mono<Void> adjustFollowCounts(String followerId, String followingId, int delta) {
+        return Mono.fromRunnable(() -> followCounters.followed(followerId, followingId, delta));
+    }
+
+    public Mono<CursorPage<UserSummary>> getFollowers(String userId, String cursor, int size) {
+        Pageable page = PageRequest.of(0, Math.max(size, 1) + 1);
+        Flux<Follow> edges = cursor == null || cursor.isEmpty()
+                ? followRepository.findByFollowingIdOrderByIdAsc(userId, page)
+                : followRepository.findByFollowingIdAndIdGreaterThanOrderByIdAsc(userId, cursor, page);
+        return requireUser(userId, "User not found").then(pageOf(edges, size, Follow::getFollowerId));
+    }
+
+    public Mono<CursorPage<UserSummary>> getFollowing(String userId, String cursor, int size) {
+        Pageable page = PageRequest.of(0, Math.max(size, 1) + 1);
+        Flux<Follow> edges = cursor == null || cursor.isEmpty()
+                ? followRepository.findByFollowerIdOrderByIdAsc(userId, page)
+                : followRepository.findByFollowerIdAndIdGreaterThanOrderByIdAsc(userId, cursor, page);
+        return requireUser(userId, "User not found").then(pageOf(edges, size, Follow::getFollowingId));
+    }
+
+    public Mono<List<Relationship>> getRelationships(String viewerId, List<String> userIds) {
+        Flux<Follow> edges = userIds.isEmpty()
+                ? Flux.empty()
+                : mongoTemplate.find(UserService.relationshipQuery(viewerId, userIds), Follow.class);
+        return edges.collectList().map(found -> {
+            Set<String> following = new HashSet<>();
+            Set<String> followedBy = new HashSet<>();
+            for (Follow edge : found) {
+                if (viewerId.equals(edge.getFollowerId())) {
+                    following.add(edge.getFollowingId());
+                } else {
+                    followedBy.add(edge.getFollowerId());
+                }
+            }
+            return userIds.stream()
+                    .distinct()
+                    .map(userId -> new Relationship(userId, following.contains(userId), followedBy.contains(userId)))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public Mono<List<SuggestedUser>> getSuggestions(String userId, int limit) {
+        return requireUser(userId, "User not found").then(Mono.defer(() -> {
+            List<FollowGraphIndex.Suggestion> suggestions = followGraphIndex.suggestions(userId, limit);
+            return findAllInOrder(suggestions.stream().map(FollowGraphIndex.Suggestion::getUserId).collect(Collectors.toList()))
+                    .map(users -> {
+                        Map<String, UserSummary> usersById = users.stream()
+                                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+                        return suggestions.stream()
+                                .filter(suggestion -> usersById.containsKey(suggestion.getUserId()))
+                                .map(suggestion -> new SuggestedUser(usersById.get(suggestion.getUserId()), suggestion.getMutualCount()))
+                                .collect(Collectors.toList());
+                    });
+        }));
+    }
+
+    public Mono<MutualFollowers> getMutualFollowers(String viewerId, String targetId, int limit) {
+        return requireUser(targetId, "User not found").then(Mono.defer(() -> {
+            int count = followGraphIndex.mutualFollowerCount(viewerId, targetId);
+            return findAllInOrder(followGraphIndex.mutualFollowers(viewerId, targetId, limit))
+                    .map(users -> new MutualFollowers(count, users));
+        }));
+    }
+
+    // Same versions as UserService.getFollowersVersion / getFollowingVersion
+    public Mono<String> getFollowersVersion(String userId, String cursor, int size) {
+        return getProfile(userId).zipWith(followRepository.findFirstByFollowingIdOrderByIdDesc(userId)
+                        .map(Follow::getId)
+                        .defaultIfEmpty(""))
+                .map(versions -> UserService.listEtag("followers", userId,
+                        versions.getT1().getFollowersCount(), versions.getT2(), cursor, size));
+    }
+
+    public Mono<String> getFollowingVersion(String userId, String cursor, int size) {
+        return getProfile(userId).zipWith(followRepository.findFirstByFollowerIdOrderByIdDesc(userId)
+                        .map(Follow::getId)
+                        .defaultIfEmpty(""))
+                .map(versions -> UserService.listEtag("following", userId,
+                        versions.getT1().getFollowingCount(), versions.getT2(), cursor, size));
+    }
+
+    private Mono<Void> requireUser(String userId, String message) {
+        return userRepository.existsById(userId)
+                .flatMap(exists -> exists ? Mono.<Void>empty() : Mono.error(new RuntimeException(message)));
+    }
+
+    private Mono<CursorPage<UserSummary>> pageOf(Flux<Follow> edges, int size, Function<Follow, String> otherSide) {
+        return edges.collectList().flatMap(all -> {
+            boolean hasMore = all.size() > Math.max(size, 1);
+            List<Follow> pageEdges = hasMore ? all.subList(0, all.size() - 1) : all;
+            List<String> ids = pageEdges.stream().map(otherSide).collect(Collectors.toList());
+            String nextCursor = hasMore ? pageEdges.get(pageEdges.size() - 1).getId() : null;
+            return findAllInOrder(ids).map(users -> new CursorPage<>(users, nextCursor));
+        });
+    }
+
+    public Mono<List<UserSummary>> searchUsers(String query, boolean prefix, int offset, int limit) {
+        return findAllInOrder(userSearchIndex.search(query, prefix, offset, limit));
+    }
+
+    private Mono<List<UserSummary>> findAllInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(new ArrayList<>());
+        }
+        return userRepository.findByIdIn(ids, UserSummary.class)
+                .collectMap(UserSummary::getId)
+                .map(usersById -> ids.stream()
+                        .map(usersById::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+    }
+
+    // Demand-driven: the driver only fetches further batches as the subscriber requests them
+    public Flux<UserSummary> getAllUsers(int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        query.fields().include("username", "name", "avatarUrl", "avatarVariants", "followersCount", "followingCount");
+        return mongoTemplate.find(query, UserSummary.class, USERS_COLLECTION);
+    }
+
+    private static Query byId(String userId) {
+        return new Query(Criteria.where("id").is(userId));
+    }
+}
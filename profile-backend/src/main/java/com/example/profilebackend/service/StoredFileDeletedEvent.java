@@ -0,0 +1,17 @@
+package com.example.profilebackend.service;
+
+/**
+ * Published by {@link FileUploadService} for every stored file it deletes,
+ * so anything that cached facts about the file can drop them.
+ */
+public class StoredFileDeletedEvent {
+    private final String url;
+
+    public StoredFileDeletedEvent(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.profilebackend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Produces square, fixed-size JPEG variants of uploaded images on a bounded
+ * background pool. The image is decoded once and every size is rendered from
+ * that single decode. When the queue is full the variants are skipped and
+ * clients keep using the original image.
+ *
+ * The dimensions are read from the image header before decoding, and images
+ * above the pixel cap are never decoded: a small, highly compressed file can
+ * otherwise expand into gigabytes of pixels. Each variant is written to a temp
+ * file next to it and moved into place atomically, so readers never see a
+ * partly written variant. The move only happens while the original is still
+ * stored; a job that finishes after the upload was released leaves nothing.
+ */
+@Service
+public class ThumbnailService implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    private final List<Integer> sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong skipped = new AtomicLong();
+
+    public ThumbnailService(@Value("${upload.thumbnails.sizes:64,150,640}") List<Integer> sizes,
+                            @Value("${upload.thumbnails.threads:2}") int threads,
+                            @Value("${upload.thumbnails.queue-capacity:100}") int queueCapacity,
+                            @Value("${upload.thumbnails.max-pixels:25000000}") long maxPixels) {
+        this.sizes = sizes;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Schedules variant generation for an uploaded image. The callback receives
+     * the variant URLs keyed by pixel size once all of them are written.
+     */
+    public void generateVariants(String imageUrl, Consumer<Map<String, String>> onReady) {
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<String, String> variants = writeVariants(imageUrl);
+                    if (!variants.isEmpty()) {
+                        onReady.accept(variants);
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to generate thumbnails for: {} - Error: {}", imageUrl, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            skipped.incrementAndGet();
+            logger.warn("Thumbnail queue full, skipping variants for: {}", imageUrl);
+        }
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    // Pool size, queue depth and completed tasks as executor.* meters tagged name=thumbnails
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "thumbnails", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("thumbnails.skipped", skipped, AtomicLong::get)
+                .description("Uploads whose variants were skipped because the queue was full")
+                .register(registry);
+    }
+
+    private Map<String, String> writeVariants(String imageUrl) throws IOException {
+        Path original = fileUploadService.resolve(imageUrl);
+        String filename = original.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+
+        Map<String, Path> targets = new LinkedHashMap<>();
+        for (int size : sizes) {
+            targets.put(String.valueOf(size), original.resolveSibling(baseName + "_" + size + ".jpg"));
+        }
+
+        // Uploads are content-addressed, so existing variants already match this image
+        if (targets.values().stream().anyMatch(target -> !Files.exists(target))) {
+            BufferedImage source = decode(original, imageUrl);
+            if (source == null) {
+                return new LinkedHashMap<>();
+            }
+            for (Map.Entry<String, Path> target : targets.entrySet()) {
+                int size = Integer.parseInt(target.getKey());
+                if (!write(squareThumbnail(source, size), target.getValue(), baseName, filename)) {
+                    logger.debug("Upload released while its thumbnails were rendered: {}", imageUrl);
+                    return new LinkedHashMap<>();
+                }
+            }
+        }
+
+        Map<String, String> variants = new LinkedHashMap<>();
+        targets.forEach((size, target) -> variants.put(size, fileUploadService.urlFor(target)));
+        logger.debug("Generated {} thumbnails for: {}", variants.size(), imageUrl);
+        return variants;
+    }
+
+    // Null when the format is unsupported or the image is over the pixel cap
+    private BufferedImage decode(Path original, String imageUrl) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("Unsupported image format, skipping thumbnails for: {}", imageUrl);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    logger.warn("Image has {} pixels, over the limit of {}, skipping thumbnails for: {}",
+                            pixels, maxPixels, imageUrl);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // The temp name shares the variants' prefix, so releasing the upload also sweeps leftovers.
+    // False when the original was released before the variant could be moved into place.
+    private boolean write(BufferedImage thumbnail, Path target, String baseName, String filename) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), baseName + "_tmp-", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "jpg", temp.toFile());
+            return fileUploadService.moveVariant(filename, temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Center-crops to a square and scales down; never upscales past the source
+    private static BufferedImage squareThumbnail(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        int target = Math.min(size, side);
+
+        BufferedImage thumbnail = new BufferedImage(target, target, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, target, target);
+            graphics.drawImage(source, 0, 0, target, target, x, y, x + side, y + side, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * In-process search index over username, name and bio.
+ *
+ * Contains-queries are answered from a posting map of every one-, two- and
+ * three-character substring: up to three characters the posting is the
+ * exact answer, longer queries intersect their trigrams and check the
+ * survivors. Typeahead lookups use a sorted map of word prefixes.
+ *
+ * Results are ranked by followers count, and every entry is also kept in a
+ * set sorted by that rank. Small candidate sets are ranked with a heap that
+ * holds only offset + limit entries. When the candidates are a large share
+ * of all users, the ranked set is walked instead, which with that many
+ * matches fills a page after a short walk. The walk has a scan budget; a
+ * page it cannot fill within it is ranked from the candidates after all.
+ */
+@Component
+public class UserSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int GRAM = 3;
+    // Candidate sets above 1/16 of all users are cheaper to find by walking the ranking
+    private static final int DENSE_SHIFT = 4;
+    // A walk gives up after visiting this many times (1 << WALK_BUDGET_SHIFT) the entries it needs
+    private static final int WALK_BUDGET_SHIFT = DENSE_SHIFT + 2;
+
+    private static final Comparator<Entry> RANK = Comparator.comparingInt((Entry entry) -> entry.followersCount).reversed()
+            .thenComparing(entry -> entry.username)
+            .thenComparing(entry -> entry.id);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(RANK);
+    // Keyed by every substring of up to GRAM characters
+    private final Map<String, Set<String>> ngrams = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<String>> words = new ConcurrentSkipListMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        logger.info("Building user search index");
+        Query query = new Query();
+        query.fields().include("username", "name", "bio", "followersCount");
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(this::index);
+        }
+        logger.info("Indexed {} users for search", entries.size());
+    }
+
+    public synchronized void index(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Entry entry = new Entry(user);
+        Entry previous = entries.put(user.getId(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+            unlink(previous);
+        }
+        link(entry);
+        ranking.add(entry);
+    }
+
+    public synchronized void remove(String userId) {
+        Entry previous = entries.remove(userId);
+        if (previous != null) {
+            ranking.remove(previous);
+            unlink(previous);
+        }
+    }
+
+    // The rank is part of the ranking set's key, so the entry is replaced rather than mutated
+    public synchronized void updateFollowersCount(String userId, int followersCount) {
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.followersCount == followersCount) {
+            return;
+        }
+        Entry updated = entry.withFollowersCount(followersCount);
+        ranking.remove(entry);
+        entries.put(userId, updated);
+        ranking.add(updated);
+    }
+
+    /**
+     * Returns the IDs of matching users, most followed first.
+     */
+    public List<String> search(String query, boolean prefix, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Neither can exceed the number of users, which also keeps skip + limit from overflowing
+        int skip = Math.min(Math.max(offset, 0), entries.size());
+        int wanted = (int) Math.min((long) skip + limit, entries.size());
+        if (skip >= wanted) {
+            return Collections.emptyList();
+        }
+
+        if (prefix) {
+            List<Set<String>> postings = new ArrayList<>(
+                    words.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values());
+            List<String> page = isDense(postings) ? walkRanking(normalized, true, skip, wanted) : null;
+            if (page != null) {
+                return page;
+            }
+            // Every ID under a matching word is a match, so there is nothing left to check
+            Set<String> candidates = new HashSet<>();
+            postings.forEach(candidates::addAll);
+            return top(candidates, null, skip, wanted);
+        }
+
+        if (normalized.length() <= GRAM) {
+            Set<String> posting = ngrams.get(normalized);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            List<String> page = isDense(List.of(posting)) ? walkRanking(normalized, false, skip, wanted) : null;
+            return page != null ? page : top(posting, null, skip, wanted);
+        }
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : grams(normalized)) {
+            Set<String> posting = ngrams.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<String> page = isDense(postings.subList(0, 1)) ? walkRanking(normalized, false, skip, wanted) : null;
+        if (page != null) {
+            return page;
+        }
+        // Sharing all trigrams does not make the query a substring, so candidates are checked
+        return top(postings.get(0), postings.subList(1, postings.size()), normalized, skip, wanted);
+    }
+
+    private boolean isDense(List<Set<String>> postings) {
+        long size = 0;
+        for (Set<String> posting : postings) {
+            size += posting.size();
+        }
+        return size > (entries.size() >> DENSE_SHIFT);
+    }
+
+    // Null when the budget runs out before the page is full
+    private List<String> walkRanking(String query, boolean prefix, int skip, int wanted) {
+        List<String> page = new ArrayList<>(wanted - skip);
+        long budget = (long) wanted << WALK_BUDGET_SHIFT;
+        int skipped = 0;
+        for (Entry entry : ranking) {
+            if (--budget < 0) {
+                return null;
+            }
+            // A rank change can briefly leave both the old and the new entry in view
+            if (entries.get(entry.id) != entry || !entry.matches(query, prefix)) {
+                continue;
+            }
+            if (skipped < skip) {
+                skipped++;
+                continue;
+            }
+            page.add(entry.id);
+            if (page.size() == wanted - skip) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    private List<String> top(Collection<String> candidates, String query, int skip, int wanted) {
+        return top(candidates, Collections.emptyList(), query, skip, wanted);
+    }
+
+    /**
+     * Ranks the candidates that are in every other posting and, when a
+     * query is given, contain it. Keeps only the best {@code wanted} in a heap
+     * whose head is the worst of them.
+     */
+    private List<String> top(Collection<String> candidates, List<Set<String>> others, String query, int skip, int wanted) {
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.min(wanted, 1024) + 1, RANK.reversed());
+        for (String userId : candidates) {
+            if (!containedInAll(others, userId)) {
+                continue;
+            }
+            Entry entry = entries.get(userId);
+            if (entry == null || (query != null && !entry.matches(query, false))) {
+                continue;
+            }
+            if (heap.size() < wanted) {
+                heap.add(entry);
+            } else if (RANK.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Entry> ranked = new ArrayList<>(heap);
+        ranked.sort(RANK);
+        List<String> page = new ArrayList<>(Math.max(ranked.size() - skip, 0));
+        for (int i = skip; i < ranked.size(); i++) {
+            page.add(ranked.get(i).id);
+        }
+        return page;
+    }
+
+    private static boolean containedInAll(List<Set<String>> postings, String userId) {
+        for (Set<String> posting : postings) {
+            if (!posting.contains(userId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void link(Entry entry) {
+        for (String gram : entry.grams()) {
+            ngrams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(entry.id);
+        }
+        for (String word : entry.words) {
+            words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(entry.id);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (String gram : entry.grams()) {
+            detach(ngrams, gram, entry.id);
+        }
+        for (String word : entry.words) {
+            detach(words, word, entry.id);
+        }
+    }
+
+    private static void detach(Map<String, Set<String>> postings, String key, String userId) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(userId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    // Every substring of one to GRAM characters
+    private static void ngrams(String value, Set<String> into) {
+        for (int i = 0; i < value.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= value.length(); length++) {
+                into.add(value.substring(i, i + length));
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final String username;
+        private final String name;
+        private final String bio;
+        private final int followersCount;
+        // Username, full name and each word of the name; fixed for the entry's lifetime
+        private final String[] words;
+
+        private Entry(User user) {
+            this.id = user.getId();
+            this.username = normalize(user.getUsername());
+            this.name = normalize(user.getName());
+            this.bio = normalize(user.getBio());
+            this.followersCount = user.getFollowersCount();
+            this.words = words(username, name);
+        }
+
+        private Entry(Entry entry, int followersCount) {
+            this.id = entry.id;
+            this.username = entry.username;
+            this.name = entry.name;
+            this.bio = entry.bio;
+            this.followersCount = followersCount;
+            this.words = entry.words;
+        }
+
+        private Entry withFollowersCount(int followersCount) {
+            return new Entry(this, followersCount);
+        }
+
+        private boolean matches(String query, boolean prefix) {
+            if (prefix) {
+                for (String word : words) {
+                    if (word.startsWith(query)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return username.contains(query) || name.contains(query) || bio.contains(query);
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            ngrams(username, grams);
+            ngrams(name, grams);
+            ngrams(bio, grams);
+            return grams;
+        }
+
+        private static String[] words(String username, String name) {
+            Set<String> words = new LinkedHashSet<>();
+            words.add(username);
+            words.add(name);
+            for (String word : name.split("\\s+")) {
+                words.add(word);
+            }
+            words.remove("");
+            return words.toArray(new String[0]);
+        }
+    }
+}
@@ -1,47 +1,112 @@
 package com.example.profilebackend.service;
 
+import com.example.profilebackend.dto.MutualFollowers;
+import com.example.profilebackend.dto.Relationship;
+import com.example.profilebackend.dto.SuggestedUser;
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Follow;
 import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.FollowRepository;
 import com.example.profilebackend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private static final String USERS_COLLECTION = "users";
     
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FollowCounters followCounters;
+
+    @Autowired
+    private FollowGraphIndex followGraphIndex;
+
     public User signup(User user) {
-        logger.debug("Checking if username exists: {}", user.getUsername());
-        if (userRepository.existsByUsername(user.getUsername())) {
-            logger.warn("Signup failed - Username already exists: {}", user.getUsername());
-            throw new RuntimeException("Username already exists");
-        }
-        
-        logger.debug("Checking if email exists: {}", user.getEmail());
-        if (userRepository.existsByEmail(user.getEmail())) {
-            logger.warn("Signup failed - Email already exists: {}", user.getEmail());
-            throw new RuntimeException("Email already exists");
-        }
-        
         // Initialize profile fields
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
-        user.setIsPrivate(false);
+        user.setPrivate(false);
         
+        // Unique indexes on username and email reject duplicates, so the
+        // happy path is a single insert with no existence queries
         logger.debug("Saving new user: {}", user.getUsername());
-        User savedUser = userRepository.save(user);
-        logger.info("Successfully saved new user: {}", user.getUsername());
+        User savedUser;
+        try {
+            savedUser = userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw duplicateSignup(user, e);
+        }
+        userSearchIndex.index(savedUser);
+        availabilityService.register(savedUser);
+        logger.debug("Successfully saved new user: {}", user.getUsername());
         return savedUser;
     }
 
+    static RuntimeException duplicateSignup(User user, DuplicateKeyException e) {
+        // Mongo names the violated index in the message, e.g. "index: email dup key"
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("index: email")) {
+            logger.warn("Signup failed - Email already exists: {}", user.getEmail());
+            return new RuntimeException("Email already exists");
+        }
+        logger.warn("Signup failed - Username already exists: {}", user.getUsername());
+        return new RuntimeException("Username already exists");
+    }
+
     public User login(String username, String password) {
         logger.debug("Attempting to find user: {}", username);
         User user = userRepository.findByUsername(username)
@@ -56,12 +121,12 @@ public class UserService {
             throw new RuntimeException("Invalid password");
         }
         
-        logger.info("Successfully authenticated user: {}", username);
-        return user;
+        logger.debug("Successfully authenticated user: {}", username);
+        return followCounters.overlay(user);
     }
 
     public void logout() {
-        logger.info("Processing logout request");
+        logger.debug("Processing logout request");
         // Since we're not using any session management or tokens,
         // logout is just a placeholder method
     }
@@ -69,146 +134,348 @@ public class UserService {
     // Profile management methods
     public User getProfile(String userId) {
         logger.debug("Getting profile for user: {}", userId);
-        return userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    logger.warn("Profile not found for user: {}", userId);
-                    return new RuntimeException("User not found");
-                });
+        User user = profileCache.getById(userId, id -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            logger.warn("Profile not found for user: {}", userId);
+            throw new RuntimeException("User not found");
+        }
+        return followCounters.overlay(user);
+    }
+
+    // Cached profiles are served from memory; the rest are read with a single $in query
+    public List<User> getProfiles(List<String> userIds) {
+        logger.debug("Getting {} profiles", userIds.size());
+        Map<String, User> usersById = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            User cached = profileCache.getIfPresent(userId);
+            if (cached != null) {
+                usersById.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long stamp = profileCache.stamp();
+            for (User user : userRepository.findAllById(misses)) {
+                profileCache.put(user, stamp);
+                usersById.put(user.getId(), user);
+            }
+        }
+        return userIds.stream()
+                .distinct()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .map(followCounters::overlay)
+                .collect(Collectors.toList());
     }
 
     public User getProfileByUsername(String username) {
         logger.debug("Getting profile for username: {}", username);
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    logger.warn("Profile not found for username: {}", username);
-                    return new RuntimeException("User not found");
-                });
+        User user = profileCache.getByUsername(username, () -> userRepository.findByUsername(username).orElse(null));
+        if (user == null) {
+            logger.warn("Profile not found for username: {}", username);
+            throw new RuntimeException("User not found");
+        }
+        return followCounters.overlay(user);
     }
 
     public User updateProfile(String userId, User updatedUser) {
         logger.debug("Updating profile for user: {}", userId);
-        User existingUser = userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    logger.warn("User not found for update: {}", userId);
-                    return new RuntimeException("User not found");
-                });
+        return applyProfileUpdate(userId, profileUpdate(updatedUser));
+    }
 
-        // Update only profile fields, not authentication data
+    // Update only profile fields, not authentication data. A targeted $set
+    // leaves the follow counters alone so concurrent $inc updates survive.
+    // Image URLs are ignored: only the upload endpoints change them, because
+    // they take and release the references on the stored files.
+    static Update profileUpdate(User updatedUser) {
+        Update update = new Update();
         if (updatedUser.getName() != null) {
-            existingUser.setName(updatedUser.getName());
+            update.set("name", updatedUser.getName());
         }
         if (updatedUser.getBio() != null) {
-            existingUser.setBio(updatedUser.getBio());
+            update.set("bio", updatedUser.getBio());
+        }
+        update.set("isPrivate", updatedUser.isPrivate());
+        return update;
+    }
+
+    // A new image invalidates the thumbnails of the previous one and releases
+    // this user's reference to the previous file
+    public void updateAvatarUrl(String userId, String avatarUrl) {
+        logger.debug("Updating avatar for user: {}", userId);
+        User previous = replaceImage(userId, "avatarUrl",
+                new Update().set("avatarUrl", avatarUrl).unset("avatarVariants"));
+        releaseReplaced(previous.getAvatarUrl());
+    }
+
+    public void updateProfileImageUrl(String userId, String profileImageUrl) {
+        logger.debug("Updating profile image for user: {}", userId);
+        User previous = replaceImage(userId, "profileImageUrl",
+                new Update().set("profileImageUrl", profileImageUrl).unset("profileImageVariants"));
+        releaseReplaced(previous.getProfileImageUrl());
+    }
+
+    // The new URL is stored by now, so the update succeeds even if the old file cannot be let go of
+    private void releaseReplaced(String imageUrl) {
+        try {
+            fileUploadService.release(imageUrl);
+        } catch (RuntimeException e) {
+            logger.error("Failed to release replaced image: {} - Error: {}", imageUrl, e.getMessage());
         }
-        if (updatedUser.getAvatarUrl() != null) {
-            existingUser.setAvatarUrl(updatedUser.getAvatarUrl());
+    }
+
+    private User replaceImage(String userId, String field, Update update) {
+        update.set("updatedAt", LocalDateTime.now());
+        Query query = new Query(Criteria.where("id").is(userId));
+        query.fields().include(field);
+        User previous = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), User.class);
+        if (previous == null) {
+            logger.warn("User not found for update: {}", userId);
+            throw new RuntimeException("User not found");
         }
-        if (updatedUser.getProfileImageUrl() != null) {
-            existingUser.setProfileImageUrl(updatedUser.getProfileImageUrl());
+        profileCache.invalidate(userId);
+        logger.debug("Successfully updated {} for user: {}", field, userId);
+        return previous;
+    }
+
+    // Only applied while the image the variants were cut from is still current
+    public void updateAvatarVariants(String userId, String avatarUrl, Map<String, String> variants) {
+        applyVariantUpdate(userId, "avatarUrl", avatarUrl, "avatarVariants", variants);
+    }
+
+    public void updateProfileImageVariants(String userId, String profileImageUrl, Map<String, String> variants) {
+        applyVariantUpdate(userId, "profileImageUrl", profileImageUrl, "profileImageVariants", variants);
+    }
+
+    private void applyVariantUpdate(String userId, String urlField, String url,
+                                    String variantsField, Map<String, String> variants) {
+        Query query = new Query(Criteria.where("id").is(userId).and(urlField).is(url));
+        long stamp = profileCache.stamp();
+        User savedUser = mongoTemplate.findAndModify(query, new Update().set(variantsField, variants),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (savedUser == null) {
+            logger.debug("Skipping stale thumbnails for user: {}", userId);
+            return;
         }
-        existingUser.setIsPrivate(updatedUser.isPrivate());
-        existingUser.setUpdatedAt(LocalDateTime.now());
+        profileCache.put(savedUser, stamp);
+        logger.debug("Stored {} for user: {}", variantsField, userId);
+    }
 
-        User savedUser = userRepository.save(existingUser);
-        logger.info("Successfully updated profile for user: {}", userId);
-        return savedUser;
+    private User applyProfileUpdate(String userId, Update update) {
+        update.set("updatedAt", LocalDateTime.now());
+        long stamp = profileCache.stamp();
+        User savedUser = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(userId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (savedUser == null) {
+            logger.warn("User not found for update: {}", userId);
+            throw new RuntimeException("User not found");
+        }
+        profileCache.put(savedUser, stamp);
+        userSearchIndex.index(savedUser);
+        logger.debug("Successfully updated profile for user: {}", userId);
+        return followCounters.overlay(savedUser);
     }
 
     // Follow system methods
+    // The unique follows index is the guard: only the request that creates or
+    // deletes the edge adjusts the counters, so repeats are no-ops and
+    // concurrent follows cannot lose increments.
     public void followUser(String followerId, String followingId) {
         logger.debug("User {} attempting to follow user {}", followerId, followingId);
         
         if (followerId.equals(followingId)) {
             throw new RuntimeException("Cannot follow yourself");
         }
-
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new RuntimeException("Follower not found"));
-        User following = userRepository.findById(followingId)
-                .orElseThrow(() -> new RuntimeException("User to follow not found"));
-
-        // Check if already following
-        if (follower.getFollowing().contains(followingId)) {
-            throw new RuntimeException("Already following this user");
+        if (!userRepository.existsById(followerId)) {
+            throw new RuntimeException("Follower not found");
+        }
+        if (!userRepository.existsById(followingId)) {
+            throw new RuntimeException("User to follow not found");
         }
 
-        // Add to following list
-        follower.getFollowing().add(followingId);
-        follower.setFollowingCount(follower.getFollowingCount() + 1);
-
-        // Add to followers list
-        following.getFollowers().add(followerId);
-        following.setFollowersCount(following.getFollowersCount() + 1);
+        try {
+            followRepository.insert(new Follow(followerId, followingId));
+        } catch (DuplicateKeyException e) {
+            logger.debug("User {} already follows user {}", followerId, followingId);
+            return;
+        }
 
-        userRepository.save(follower);
-        userRepository.save(following);
-        logger.info("User {} successfully followed user {}", followerId, followingId);
+        adjustFollowCounts(followerId, followingId, 1);
+        followGraphIndex.follow(followerId, followingId);
+        feedService.onFollow(followerId, followingId);
+        logger.debug("User {} successfully followed user {}", followerId, followingId);
     }
 
     public void unfollowUser(String followerId, String followingId) {
         logger.debug("User {} attempting to unfollow user {}", followerId, followingId);
-        
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new RuntimeException("Follower not found"));
-        User following = userRepository.findById(followingId)
-                .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
 
-        // Check if currently following
-        if (!follower.getFollowing().contains(followingId)) {
-            throw new RuntimeException("Not following this user");
+        if (followRepository.deleteByFollowerIdAndFollowingId(followerId, followingId) == 0) {
+            logger.debug("User {} does not follow user {}", followerId, followingId);
+            return;
         }
 
-        // Remove from following list
-        follower.getFollowing().remove(followingId);
-        follower.setFollowingCount(follower.getFollowingCount() - 1);
+        adjustFollowCounts(followerId, followingId, -1);
+        followGraphIndex.unfollow(followerId, followingId);
+        feedService.onUnfollow(followerId, followingId);
+        logger.debug("User {} successfully unfollowed user {}", followerId, followingId);
+    }
+
+    // Counts are buffered and written behind; see FollowCounters
+    private void adjustFollowCounts(String followerId, String followingId, int delta) {
+        followCounters.followed(followerId, followingId, delta);
+    }
 
-        // Remove from followers list
-        following.getFollowers().remove(followerId);
-        following.setFollowersCount(following.getFollowersCount() - 1);
+    public CursorPage<UserSummary> getFollowers(String userId, String cursor, int size) {
+        logger.debug("Getting followers for user: {} after cursor: {}", userId, cursor);
+        requireUser(userId);
+        Pageable page = PageRequest.of(0, Math.max(size, 1) + 1);
+        List<Follow> edges = cursor == null || cursor.isEmpty()
+                ? followRepository.findByFollowingIdOrderByIdAsc(userId, page)
+                : followRepository.findByFollowingIdAndIdGreaterThanOrderByIdAsc(userId, cursor, page);
+        return pageOf(edges, size, Follow::getFollowerId);
+    }
 
-        userRepository.save(follower);
-        userRepository.save(following);
-        logger.info("User {} successfully unfollowed user {}", followerId, followingId);
+    public CursorPage<UserSummary> getFollowing(String userId, String cursor, int size) {
+        logger.debug("Getting following list for user: {} after cursor: {}", userId, cursor);
+        requireUser(userId);
+        Pageable page = PageRequest.of(0, Math.max(size, 1) + 1);
+        List<Follow> edges = cursor == null || cursor.isEmpty()
+                ? followRepository.findByFollowerIdOrderByIdAsc(userId, page)
+                : followRepository.findByFollowerIdAndIdGreaterThanOrderByIdAsc(userId, cursor, page);
+        return pageOf(edges, size, Follow::getFollowingId);
     }
 
-    public List<User> getFollowers(String userId) {
-        logger.debug("Getting followers for user: {}", userId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return user.getFollowers().stream()
-                .map(followerId -> userRepository.findById(followerId).orElse(null))
-                .filter(follower -> follower != null)
+    // Both directions come back from one $or query, each branch served by a follows index
+    public List<Relationship> getRelationships(String viewerId, List<String> userIds) {
+        logger.debug("Getting relationships between {} and {} users", viewerId, userIds.size());
+        Set<String> following = new HashSet<>();
+        Set<String> followedBy = new HashSet<>();
+        if (!userIds.isEmpty()) {
+            for (Follow edge : mongoTemplate.find(relationshipQuery(viewerId, userIds), Follow.class)) {
+                if (viewerId.equals(edge.getFollowerId())) {
+                    following.add(edge.getFollowingId());
+                } else {
+                    followedBy.add(edge.getFollowerId());
+                }
+            }
+        }
+        return userIds.stream()
+                .distinct()
+                .map(userId -> new Relationship(userId, following.contains(userId), followedBy.contains(userId)))
                 .collect(Collectors.toList());
     }
 
-    public List<User> getFollowing(String userId) {
-        logger.debug("Getting following list for user: {}", userId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return user.getFollowing().stream()
-                .map(followingId -> userRepository.findById(followingId).orElse(null))
-                .filter(following -> following != null)
+    static Query relationshipQuery(String viewerId, Collection<String> userIds) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("followerId").is(viewerId).and("followingId").in(userIds),
+                Criteria.where("followingId").is(viewerId).and("followerId").in(userIds)));
+        query.fields().include("followerId", "followingId");
+        return query;
+    }
+
+    public List<SuggestedUser> getSuggestions(String userId, int limit) {
+        logger.debug("Getting suggestions for user: {}", userId);
+        requireUser(userId);
+        List<FollowGraphIndex.Suggestion> suggestions = followGraphIndex.suggestions(userId, limit);
+        Map<String, UserSummary> usersById = new HashMap<>();
+        findAllInOrder(suggestions.stream().map(FollowGraphIndex.Suggestion::getUserId).collect(Collectors.toList()))
+                .forEach(user -> usersById.put(user.getId(), user));
+        return suggestions.stream()
+                .filter(suggestion -> usersById.containsKey(suggestion.getUserId()))
+                .map(suggestion -> new SuggestedUser(usersById.get(suggestion.getUserId()), suggestion.getMutualCount()))
                 .collect(Collectors.toList());
     }
 
+    public MutualFollowers getMutualFollowers(String viewerId, String targetId, int limit) {
+        logger.debug("Getting followers of {} that {} follows", targetId, viewerId);
+        requireUser(targetId);
+        return new MutualFollowers(
+                followGraphIndex.mutualFollowerCount(viewerId, targetId),
+                findAllInOrder(followGraphIndex.mutualFollowers(viewerId, targetId, limit)));
+    }
+
+    /**
+     * Version of a followers/following page. A follow always adds a newer
+     * edge and an unfollow lowers the count, so any change to the list moves
+     * one of the two. The count comes from the cached profile and the newest
+     * edge from one indexed lookup, so no page is loaded.
+     */
+    public String getFollowersVersion(String userId, String cursor, int size) {
+        User user = getProfile(userId);
+        String newestEdge = followRepository.findFirstByFollowingIdOrderByIdDesc(userId).map(Follow::getId).orElse("");
+        return listEtag("followers", userId, user.getFollowersCount(), newestEdge, cursor, size);
+    }
+
+    public String getFollowingVersion(String userId, String cursor, int size) {
+        User user = getProfile(userId);
+        String newestEdge = followRepository.findFirstByFollowerIdOrderByIdDesc(userId).map(Follow::getId).orElse("");
+        return listEtag("following", userId, user.getFollowingCount(), newestEdge, cursor, size);
+    }
+
+    // Weak: the list entries embed other users' names and avatars, which this version does not track
+    static String listEtag(String list, String userId, int count, String newestEdge, String cursor, int size) {
+        String version = list + '|' + userId + '|' + count + '|' + newestEdge + '|' + cursor + '|' + size;
+        return "W/\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private void requireUser(String userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+    }
+
+    // Edges are fetched with one extra row so we know whether another page exists
+    private CursorPage<UserSummary> pageOf(List<Follow> edges, int size, Function<Follow, String> otherSide) {
+        boolean hasMore = edges.size() > Math.max(size, 1);
+        List<Follow> pageEdges = hasMore ? edges.subList(0, edges.size() - 1) : edges;
+        List<String> ids = pageEdges.stream().map(otherSide).collect(Collectors.toList());
+        String nextCursor = hasMore ? pageEdges.get(pageEdges.size() - 1).getId() : null;
+        return new CursorPage<>(findAllInOrder(ids), nextCursor);
+    }
+
     // Search functionality
-    public List<User> searchUsers(String query) {
-        logger.debug("Searching users with query: {}", query);
-        List<User> allUsers = userRepository.findAll();
-        
-        return allUsers.stream()
-                .filter(user -> 
-                    user.getUsername().toLowerCase().contains(query.toLowerCase()) ||
-                    user.getName().toLowerCase().contains(query.toLowerCase()) ||
-                    (user.getBio() != null && user.getBio().toLowerCase().contains(query.toLowerCase()))
-                )
+    public List<UserSummary> searchUsers(String query, boolean prefix, int offset, int limit) {
+        logger.debug("Searching users with query: {} (prefix: {}, offset: {}, limit: {})", query, prefix, offset, limit);
+        List<String> ids = userSearchIndex.search(query, prefix, offset, limit);
+        return findAllInOrder(ids);
+    }
+
+    private List<UserSummary> findAllInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, UserSummary> usersById = new HashMap<>();
+        userRepository.findByIdIn(ids, UserSummary.class).forEach(user -> usersById.put(user.getId(), user));
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    public List<User> getAllUsers() {
+    public List<UserSummary> getAllUsers() {
         logger.debug("Getting all users");
-        return userRepository.findAll();
+        return userRepository.findAllBy(UserSummary.class);
+    }
+
+    // Walks a server-side cursor so only one batch of users is in memory at a time
+    public long streamAllUsers(int batchSize, Consumer<UserSummary> consumer) {
+        logger.debug("Streaming all users with batch size: {}", batchSize);
+        Query query = new Query().cursorBatchSize(batchSize);
+        query.fields().include("username", "name", "avatarUrl", "avatarVariants", "followersCount", "followingCount");
+        long count = 0;
+        try (Stream<UserSummary> users = mongoTemplate.stream(query, UserSummary.class, USERS_COLLECTION)) {
+            Iterator<UserSummary> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.ProfileBackendApplication;
+import com.example.profilebackend.model.Post;
+import com.example.profilebackend.model.Timeline;
+import com.example.profilebackend.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Home feeds on both stacks, with thresholds small enough to cross in a
+ * test: authors with 10 followers are pulled, timelines keep 5 posts and
+ * follow counts are flushed every 100 ms. Fan-out and promotion happen in
+ * the background, so their effects are polled for.
+ */
+class FeedApiTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String MVC = "mvc";
+    private static final String REACTIVE = "reactive";
+    private static final int PULL_THRESHOLD = 10;
+    private static final int TIMELINE_SIZE = 5;
+    private static final long FLUSH_INTERVAL_MS = 100;
+
+    private static final Map<String, ConfigurableApplicationContext> apps = new LinkedHashMap<>();
+    private static final Map<String, WebTestClient> clients = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void startStacks() {
+        for (String stack : List.of(MVC, REACTIVE)) {
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(ProfileBackendApplication.class);
+            if (REACTIVE.equals(stack)) {
+                builder.profiles(REACTIVE);
+            }
+            ConfigurableApplicationContext app = builder.run(
+                    "--server.port=0",
+                    "--spring.data.mongodb.port=0",
+                    "--de.flapdoodle.mongodb.embedded.version=7.0.12",
+                    "--logging.level.com.example.profilebackend=INFO",
+                    "--feed.fanout.max-followers=" + PULL_THRESHOLD,
+                    "--feed.timeline.max-size=" + TIMELINE_SIZE,
+                    "--feed.pull.refresh-interval-ms=" + FLUSH_INTERVAL_MS,
+                    "--follow.counters.flush-interval-ms=" + FLUSH_INTERVAL_MS);
+            apps.put(stack, app);
+            clients.put(stack, WebTestClient.bindToServer()
+                    .baseUrl("http://localhost:" + app.getEnvironment().getProperty("local.server.port"))
+                    .build());
+        }
+    }
+
+    @AfterAll
+    static void stopStacks() {
+        apps.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    static Stream<String> stacks() {
+        return Stream.of(MVC, REACTIVE);
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void pushedAndPulledPostsAreMergedNewestFirst(String stack) throws Exception {
+        WebTestClient client = clients.get(stack);
+        MongoTemplate mongo = apps.get(stack).getBean(MongoTemplate.class);
+        String reader = signup(client, unique("reader"));
+        String pushed = signup(client, unique("pushed"));
+        String pulled = signup(client, unique("pulled"));
+        follow(client, reader, pushed);
+        follow(client, reader, pulled);
+        for (int i = 1; i < PULL_THRESHOLD; i++) {
+            follow(client, signup(client, unique("fan")), pulled);
+        }
+        eventually(() -> assertTrue(user(mongo, pulled).isPullAuthor()));
+
+        String first = post(client, pushed);
+        String second = post(client, pulled);
+        String third = post(client, pushed);
+        String fourth = post(client, pulled);
+
+        // Only the pushed posts are in the reader's timeline; the others are merged when it is read
+        eventually(() -> assertEquals(List.of(third, first), timeline(mongo, reader)));
+        assertFalse(mongo.findById(second, Post.class).isFannedOut());
+        assertFalse(mongo.findById(fourth, Post.class).isFannedOut());
+
+        JsonNode firstPage = feed(client, reader, 2, null);
+        assertEquals(List.of(fourth, third), postIds(firstPage));
+        assertEquals(third, firstPage.get("nextCursor").asText());
+        JsonNode lastPage = feed(client, reader, 2, third);
+        assertEquals(List.of(second, first), postIds(lastPage));
+        assertTrue(lastPage.path("nextCursor").isNull() || lastPage.path("nextCursor").isMissingNode());
+        assertEquals(pulled, firstPage.get("items").get(0).get("author").get("id").asText());
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void timelineKeepsOnlyTheNewestPosts(String stack) throws Exception {
+        WebTestClient client = clients.get(stack);
+        MongoTemplate mongo = apps.get(stack).getBean(MongoTemplate.class);
+        String reader = signup(client, unique("reader"));
+        String author = signup(client, unique("author"));
+        follow(client, reader, author);
+
+        List<String> posts = new ArrayList<>();
+        for (int i = 0; i < TIMELINE_SIZE + 2; i++) {
+            posts.add(post(client, author));
+        }
+        Collections.reverse(posts);
+        List<String> newest = posts.subList(0, TIMELINE_SIZE);
+
+        eventually(() -> assertEquals(newest, timeline(mongo, reader)));
+        assertEquals(newest, timeline(mongo, author));
+        assertEquals(newest, postIds(feed(client, reader, TIMELINE_SIZE + 2, null)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void authorBelowNinetyPercentIsDemotedAndItsPulledPostsArePushed(String stack) throws Exception {
+        WebTestClient client = clients.get(stack);
+        MongoTemplate mongo = apps.get(stack).getBean(MongoTemplate.class);
+        String author = signup(client, unique("author"));
+        List<String> followers = new ArrayList<>();
+        for (int i = 0; i < PULL_THRESHOLD; i++) {
+            String follower = signup(client, unique("fan"));
+            follow(client, follower, author);
+            followers.add(follower);
+        }
+        eventually(() -> assertTrue(user(mongo, author).isPullAuthor()));
+        String pulled = post(client, author);
+        assertFalse(mongo.findById(pulled, Post.class).isFannedOut());
+
+        // 9 followers is 90% of the threshold, which is not yet below it
+        unfollow(client, followers.remove(0), author);
+        eventually(() -> assertEquals(PULL_THRESHOLD - 1, user(mongo, author).getFollowersCount()));
+        Thread.sleep(5 * FLUSH_INTERVAL_MS);
+        assertTrue(user(mongo, author).isPullAuthor());
+        assertFalse(mongo.findById(pulled, Post.class).isFannedOut());
+
+        String unfollower = followers.remove(0);
+        unfollow(client, unfollower, author);
+        eventually(() -> assertFalse(user(mongo, author).isPullAuthor()));
+        eventually(() -> assertTrue(mongo.findById(pulled, Post.class).isFannedOut()));
+        for (String follower : followers) {
+            eventually(() -> assertEquals(List.of(pulled), timeline(mongo, follower)));
+        }
+        assertEquals(List.of(), timeline(mongo, unfollower));
+
+        // Posts after the demotion are pushed again
+        String pushed = post(client, author);
+        assertTrue(mongo.findById(pushed, Post.class).isFannedOut());
+        for (String follower : followers) {
+            eventually(() -> assertEquals(List.of(pushed, pulled), timeline(mongo, follower)));
+        }
+    }
+
+    private static void eventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(FLUSH_INTERVAL_MS / 2);
+            }
+        }
+    }
+
+    private static User user(MongoTemplate mongo, String userId) {
+        User user = mongo.findById(userId, User.class);
+        assertNotNull(user);
+        return user;
+    }
+
+    private static List<String> timeline(MongoTemplate mongo, String userId) {
+        Timeline timeline = mongo.findById(userId, Timeline.class);
+        return timeline == null ? List.of() : timeline.getPostIds();
+    }
+
+    private static String post(WebTestClient client, String userId) throws IOException {
+        MultipartBodyBuilder form = new MultipartBodyBuilder();
+        form.part("caption", unique("caption"));
+        byte[] body = client.post().uri("/api/posts/" + userId)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(form.build()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        return MAPPER.readTree(body).get("id").asText();
+    }
+
+    private static JsonNode feed(WebTestClient client, String userId, int size, String cursor) throws IOException {
+        String uri = "/api/posts/feed/" + userId + "?size=" + size + (cursor == null ? "" : "&cursor=" + cursor);
+        byte[] body = client.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        return MAPPER.readTree(body);
+    }
+
+    private static List<String> postIds(JsonNode page) {
+        List<String> ids = new ArrayList<>();
+        page.get("items").forEach(item -> ids.add(item.get("post").get("id").asText()));
+        return ids;
+    }
+
+    private static void follow(WebTestClient client, String followerId, String followingId) {
+        client.post().uri("/api/users/follow/" + followerId + "/" + followingId)
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+    }
+
+    private static void unfollow(WebTestClient client, String followerId, String followingId) {
+        client.post().uri("/api/users/unfollow/" + followerId + "/" + followingId)
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+    }
+
+    private static String signup(WebTestClient client, String username) throws IOException {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("username", username);
+        user.put("email", username + "@example.com");
+        user.put("password", "secret");
+        user.put("name", username);
+        byte[] body = client.post().uri("/api/users/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        return MAPPER.readTree(body).get("id").asText();
+    }
+
+    private static String unique(String prefix) {
+        return prefix + UUID.randomUUID().toString().replace("-", "");
+    }
+}
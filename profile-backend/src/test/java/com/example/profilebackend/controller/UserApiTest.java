@@ -0,0 +1,389 @@
+package com.example.profilebackend.controller;
+
+import com.example.profilebackend.ProfileBackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The /api/users contract, run against both the Spring MVC stack and the
+ * WebFlux stack ("reactive" profile). Each stack runs in its own application
+ * context with its own embedded mongod. Every scenario runs on both, and
+ * stacksAgree replays one script on both and compares status codes and
+ * normalised bodies.
+ */
+class UserApiTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String MVC = "mvc";
+    private static final String REACTIVE = "reactive";
+
+    // Differ between runs by construction, so they are masked before comparing
+    private static final Set<String> VOLATILE_FIELDS = Set.of("createdAt", "updatedAt", "timestamp", "requestId");
+
+    private static final Map<String, ConfigurableApplicationContext> apps = new LinkedHashMap<>();
+    private static final Map<String, WebTestClient> clients = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void startStacks() {
+        for (String stack : List.of(MVC, REACTIVE)) {
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(ProfileBackendApplication.class);
+            if (REACTIVE.equals(stack)) {
+                builder.profiles(REACTIVE);
+            }
+            ConfigurableApplicationContext app = builder.run(
+                    "--server.port=0",
+                    "--spring.data.mongodb.port=0",
+                    "--de.flapdoodle.mongodb.embedded.version=7.0.12",
+                    "--logging.level.com.example.profilebackend=INFO");
+            apps.put(stack, app);
+            clients.put(stack, WebTestClient.bindToServer()
+                    .baseUrl("http://localhost:" + app.getEnvironment().getProperty("local.server.port"))
+                    .build());
+        }
+    }
+
+    @AfterAll
+    static void stopStacks() {
+        apps.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    static Stream<String> stacks() {
+        return Stream.of(MVC, REACTIVE);
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void signupReturnsTheProfileWithoutCredentials(String stack) throws IOException {
+        String username = unique("signup");
+        JsonNode profile = json(clients.get(stack).post().uri("/api/users/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUser(username))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult());
+
+        assertEquals(username, profile.get("username").asText());
+        assertNotNull(profile.get("id").textValue());
+        assertEquals(0, profile.get("followersCount").asInt());
+        assertFalse(profile.has("password"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void signupIgnoresServerOwnedFields(String stack) throws IOException {
+        String username = unique("owned");
+        Map<String, Object> user = newUser(username);
+        user.put("id", "5f0000000000000000000000");
+        user.put("avatarUrl", "/uploads/profile-images/" + "0".repeat(64) + ".jpg");
+        user.put("profileImageUrl", "/uploads/profile-images/" + "1".repeat(64) + ".jpg");
+        user.put("avatarVariants", Map.of("64", "/uploads/profile-images/" + "0".repeat(64) + "_64.jpg"));
+        user.put("followersCount", 1000);
+        user.put("postsCount", 7);
+        user.put("countsVersion", Long.MAX_VALUE);
+        JsonNode profile = json(clients.get(stack).post().uri("/api/users/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult());
+
+        assertNotEquals("5f0000000000000000000000", profile.get("id").asText());
+        assertTrue(profile.path("avatarUrl").isNull() || profile.path("avatarUrl").isMissingNode());
+        assertTrue(profile.path("profileImageUrl").isNull() || profile.path("profileImageUrl").isMissingNode());
+        assertTrue(profile.path("avatarVariants").isNull() || profile.path("avatarVariants").isMissingNode());
+        assertEquals(0, profile.get("followersCount").asInt());
+        assertEquals(0, profile.get("postsCount").asInt());
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void duplicateSignupAndBadLoginAreErrors(String stack) {
+        WebTestClient client = clients.get(stack);
+        String username = unique("dup");
+        signup(client, username);
+
+        client.post().uri("/api/users/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUser(username))
+                .exchange()
+                .expectStatus().is5xxServerError()
+                .expectBody().jsonPath("$.path").isEqualTo("/api/users/signup");
+
+        client.post().uri("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", "wrong"))
+                .exchange()
+                .expectStatus().is5xxServerError();
+
+        client.post().uri("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", "secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.username").isEqualTo(username);
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void profileReadsAnswerConditionalRequests(String stack) {
+        WebTestClient client = clients.get(stack);
+        String userId = signup(client, unique("etag"));
+
+        String etag = client.get().uri("/api/users/profile/{id}", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        client.get().uri("/api/users/profile/{id}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        client.get().uri("/api/users/profile/{id}", "000000000000000000000000")
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void followsShowUpInCountsListsAndRelationships(String stack) throws IOException {
+        WebTestClient client = clients.get(stack);
+        String follower = signup(client, unique("follower"));
+        String followed = signup(client, unique("followed"));
+
+        // Repeats are no-ops
+        for (int i = 0; i < 2; i++) {
+            client.post().uri("/api/users/follow/{a}/{b}", follower, followed).exchange().expectStatus().isOk();
+        }
+        client.post().uri("/api/users/follow/{a}/{a}", follower, follower).exchange().expectStatus().is5xxServerError();
+
+        client.get().uri("/api/users/profile/{id}", followed).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.followersCount").isEqualTo(1);
+        client.get().uri("/api/users/followers/{id}", followed).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.items[0].id").isEqualTo(follower)
+                .jsonPath("$.nextCursor").doesNotExist();
+        JsonNode relationships = json(client.get().uri("/api/users/relationships/{id}?ids={ids}", followed, follower)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult());
+        assertFalse(relationships.get(0).get("following").asBoolean());
+        assertTrue(relationships.get(0).get("followedBy").asBoolean());
+
+        client.post().uri("/api/users/unfollow/{a}/{b}", follower, followed).exchange().expectStatus().isOk();
+        client.get().uri("/api/users/profile/{id}", followed).exchange()
+                .expectBody().jsonPath("$.followersCount").isEqualTo(0);
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void profileUpdatesIgnoreImageUrls(String stack) {
+        WebTestClient client = clients.get(stack);
+        String userId = signup(client, unique("update"));
+
+        client.put().uri("/api/users/profile/{id}", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("bio", "hello", "avatarUrl", "/uploads/profile-images/someone-else.jpg"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.bio").isEqualTo("hello")
+                .jsonPath("$.avatarUrl").doesNotExist();
+    }
+
+    @ParameterizedTest
+    @MethodSource("stacks")
+    void searchAvailabilityAndBatchLimits(String stack) {
+        WebTestClient client = clients.get(stack);
+        String username = unique("findme");
+        signup(client, username);
+
+        client.get().uri("/api/users/search?query={q}&prefix=true", username.substring(0, 10))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[?(@.username == '" + username + "')]").exists();
+        client.get().uri("/api/users/availability?username={u}", username)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.username").isEqualTo(false);
+
+        String tooMany = IntStream.range(0, 201).mapToObj(Integer::toString).collect(Collectors.joining(","));
+        client.get().uri("/api/users/profiles?ids={ids}", tooMany)
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void stacksAgree() throws IOException {
+        String alice = unique("alice");
+        String bob = unique("bob");
+        Map<String, List<JsonNode>> transcripts = new LinkedHashMap<>();
+        for (String stack : List.of(MVC, REACTIVE)) {
+            WebTestClient client = clients.get(stack);
+            Map<String, String> ids = new LinkedHashMap<>();
+            ids.put(alice, signup(client, alice));
+            ids.put(bob, signup(client, bob));
+            String a = ids.get(alice);
+            String b = ids.get(bob);
+
+            List<JsonNode> transcript = new ArrayList<>();
+            transcript.add(call(client, HttpMethod.POST, "/api/users/signup", newUser(alice), ids));
+            transcript.add(call(client, HttpMethod.POST, "/api/users/login", Map.of("username", alice, "password", "nope"), ids));
+            transcript.add(call(client, HttpMethod.POST, "/api/users/follow/" + a + "/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.POST, "/api/users/follow/" + a + "/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.POST, "/api/users/follow/" + a + "/" + a, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/profile/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/profile/username/" + alice, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/followers/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/following/" + a, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/relationships/" + a + "?ids=" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/profiles?ids=" + a + "," + b + ",000000000000000000000000", null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/mutuals/" + a + "/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/search?query=" + alice, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/availability?username=" + alice + "&email=free@example.com", null, ids));
+            transcript.add(call(client, HttpMethod.PUT, "/api/users/profile/" + a, Map.of("name", "Alice", "bio", "hi"), ids));
+            transcript.add(call(client, HttpMethod.POST, "/api/users/unfollow/" + a + "/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/profile/" + b, null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/profile/000000000000000000000000", null, ids));
+            transcript.add(call(client, HttpMethod.GET, "/api/users/followers/000000000000000000000000", null, ids));
+            transcripts.put(stack, transcript);
+        }
+
+        List<JsonNode> mvc = transcripts.get(MVC);
+        List<JsonNode> reactive = transcripts.get(REACTIVE);
+        for (int i = 0; i < mvc.size(); i++) {
+            assertEquals(mvc.get(i), reactive.get(i), "response " + i + " differs between stacks");
+        }
+    }
+
+    // Status plus normalised body; error bodies are reduced to the fields both stacks render
+    private static JsonNode call(WebTestClient client, HttpMethod method, String path, Object body,
+                                 Map<String, String> ids) throws IOException {
+        WebTestClient.RequestBodySpec request = client.method(method).uri(path);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+        }
+        EntityExchangeResult<byte[]> result = request.exchange().expectBody().returnResult();
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("request", method + " " + mask(path, ids));
+        response.put("status", result.getStatus().value());
+        JsonNode json = json(result);
+        if (result.getStatus().isError() && json != null) {
+            ObjectNode error = MAPPER.createObjectNode();
+            error.set("status", json.get("status"));
+            error.set("error", json.get("error"));
+            error.put("path", mask(json.path("path").asText(), ids));
+            response.set("body", error);
+        } else if (json != null) {
+            response.set("body", normalise(json, ids));
+        }
+        return response;
+    }
+
+    private static JsonNode normalise(JsonNode node, Map<String, String> ids) {
+        if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            List<String> names = new ArrayList<>();
+            fields.forEachRemaining(field -> names.add(field.getKey()));
+            for (String name : names) {
+                if (VOLATILE_FIELDS.contains(name)) {
+                    object.remove(name);
+                } else {
+                    object.set(name, normalise(object.get(name), ids));
+                }
+            }
+            return object;
+        }
+        if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, normalise(array.get(i), ids));
+            }
+            return array;
+        }
+        if (node.isTextual()) {
+            return new TextNode(mask(node.asText(), ids));
+        }
+        return node;
+    }
+
+    // Generated ids differ per stack, so they are replaced by the username they belong to
+    private static String mask(String text, Map<String, String> ids) {
+        for (Map.Entry<String, String> id : ids.entrySet()) {
+            text = text.replace(id.getValue(), "<" + id.getKey() + ">");
+        }
+        return text;
+    }
+
+    private static JsonNode json(EntityExchangeResult<byte[]> result) throws IOException {
+        byte[] body = result.getResponseBody();
+        return body == null || body.length == 0 ? null : MAPPER.readTree(body);
+    }
+
+    private static String signup(WebTestClient client, String username) {
+        byte[] body = client.post().uri("/api/users/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUser(username))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        try {
+            return MAPPER.readTree(body).get("id").asText();
+        } catch (IOException e) {
+            throw new RuntimeException("Unreadable signup response", e);
+        }
+    }
+
+    private static Map<String, Object> newUser(String username) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("username", username);
+        user.put("email", username + "@example.com");
+        user.put("password", "secret");
+        user.put("name", username);
+        return user;
+    }
+
+    private static String unique(String prefix) {
+        return prefix + UUID.randomUUID().toString().replace("-", "");
+    }
+}
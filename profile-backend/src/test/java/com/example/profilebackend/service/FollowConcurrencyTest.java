@@ -0,0 +1,212 @@
+package com.example.profilebackend.service;
+
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.FollowRepository;
+import com.example.profilebackend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Races duplicate signups and follow/unfollow pairs against a real mongod.
+ * The unique indexes are the only guard, so exactly one signup and at most
+ * one edge may survive, and the counters must agree with the edges. A hot
+ * target followed by thousands of accounts at once exercises the buffered
+ * counter path.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.data.mongodb.port=0",
+        "de.flapdoodle.mongodb.embedded.version=7.0.12"
+})
+class FollowConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int HOT_FOLLOWERS = 2000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private FollowCounters followCounters;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void parallelSignupsWithTheSameUsernameCreateOneUser() throws Exception {
+        String username = "racer-" + UUID.randomUUID();
+        List<Boolean> created = race(THREADS, i -> {
+            userService.signup(newUser(username, username + "-" + i + "@example.com"));
+            return true;
+        });
+
+        assertEquals(1, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, mongoTemplate.count(new Query(Criteria.where("username").is(username)), User.class));
+    }
+
+    @Test
+    void parallelSignupsWithTheSameEmailCreateOneUser() throws Exception {
+        String email = "racer-" + UUID.randomUUID() + "@example.com";
+        List<Boolean> created = race(THREADS, i -> {
+            userService.signup(newUser("racer-" + UUID.randomUUID(), email));
+            return true;
+        });
+
+        assertEquals(1, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, mongoTemplate.count(new Query(Criteria.where("email").is(email)), User.class));
+    }
+
+    @Test
+    void parallelFollowsCreateOneEdge() throws Exception {
+        User follower = signup();
+        User followed = signup();
+
+        List<Boolean> succeeded = race(THREADS, i -> {
+            userService.followUser(follower.getId(), followed.getId());
+            return true;
+        });
+
+        // Repeats are no-ops, not errors
+        assertFalse(succeeded.contains(false));
+        assertEquals(1, followRepository.countByFollowingId(followed.getId()));
+        assertCountsMatchEdges(follower, followed);
+    }
+
+    @Test
+    void interleavedFollowAndUnfollowKeepCountsInStepWithEdges() throws Exception {
+        User follower = signup();
+        List<User> targets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            targets.add(signup());
+        }
+
+        List<Boolean> succeeded = race(THREADS, i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int round = 0; round < 50; round++) {
+                User target = targets.get(random.nextInt(targets.size()));
+                if (random.nextBoolean()) {
+                    userService.followUser(follower.getId(), target.getId());
+                } else {
+                    userService.unfollowUser(follower.getId(), target.getId());
+                }
+            }
+            return true;
+        });
+
+        assertFalse(succeeded.contains(false));
+        for (User target : targets) {
+            long edges = mongoTemplate.count(new Query(Criteria.where("followerId").is(follower.getId())
+                    .and("followingId").is(target.getId())), Follow.class);
+            assertTrue(edges <= 1, "duplicate edge to " + target.getId());
+        }
+        targets.add(follower);
+        assertCountsMatchEdges(targets.toArray(new User[0]));
+    }
+
+    @Test
+    void thousandsOfFollowersOnOneTargetAreAllCounted() throws Exception {
+        User target = signup();
+        List<User> followers = new ArrayList<>();
+        for (int i = 0; i < HOT_FOLLOWERS; i++) {
+            String username = "fan-" + UUID.randomUUID();
+            followers.add(newUser(username, username + "@example.com"));
+        }
+        followers = new ArrayList<>(userRepository.insert(followers));
+
+        List<User> fans = followers;
+        List<Boolean> succeeded = race(HOT_FOLLOWERS, Executors.newVirtualThreadPerTaskExecutor(), i -> {
+            userService.followUser(fans.get(i).getId(), target.getId());
+            return true;
+        });
+
+        assertFalse(succeeded.contains(false));
+        followCounters.flush();
+        User stored = userRepository.findById(target.getId()).orElseThrow();
+        assertEquals(HOT_FOLLOWERS, followRepository.countByFollowingId(target.getId()));
+        assertEquals(HOT_FOLLOWERS, stored.getFollowersCount());
+        assertCountsMatchEdges(fans.get(0), fans.get(HOT_FOLLOWERS - 1));
+    }
+
+    private void assertCountsMatchEdges(User... users) {
+        followCounters.flush();
+        for (User user : users) {
+            User stored = userRepository.findById(user.getId()).orElseThrow();
+            assertEquals(followRepository.countByFollowingId(user.getId()), stored.getFollowersCount(),
+                    "followersCount of " + user.getUsername());
+            assertEquals(followRepository.countByFollowerId(user.getId()), stored.getFollowingCount(),
+                    "followingCount of " + user.getUsername());
+        }
+    }
+
+    private static List<Boolean> race(int threads, IndexedTask task) throws Exception {
+        return race(threads, Executors.newFixedThreadPool(threads), task);
+    }
+
+    // Starts all tasks at once; a task that throws counts as false
+    private static List<Boolean> race(int tasks, ExecutorService pool, IndexedTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (ExecutorService executor = pool) {
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                Callable<Boolean> call = () -> {
+                    start.await();
+                    try {
+                        return task.run(index);
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private User signup() {
+        String username = "user-" + UUID.randomUUID();
+        return userService.signup(newUser(username, username + "@example.com"));
+    }
+
+    private static User newUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setName(username);
+        user.setPassword("secret");
+        return user;
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        boolean run(int index) throws Exception;
+    }
+}
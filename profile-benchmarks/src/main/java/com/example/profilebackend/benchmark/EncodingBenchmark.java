@@ -0,0 +1,94 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of writing a followers page as JSON, Smile or CBOR, with and without
+ * gzip on top. The encoded sizes are printed once per trial so the CPU cost
+ * can be weighed against bytes on the wire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"50", "200"})
+    private int pageSize;
+
+    private ObjectMapper mapper;
+    private CursorPage<UserSummary> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (format) {
+            case "json" -> mapper = new JsonMapper();
+            case "smile" -> mapper = new SmileMapper();
+            case "cbor" -> mapper = new CBORMapper();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        Random random = new Random(42L);
+        List<UserSummary> items = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String id = String.format("65f1c2a9%016x", random.nextLong());
+            Map<String, String> variants = new LinkedHashMap<>();
+            String hash = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+            for (String size : List.of("64", "150", "640")) {
+                variants.put(size, "/uploads/profile-images/" + hash + "_" + size + ".jpg");
+            }
+            items.add(new UserSummary(id, "user" + random.nextInt(1_000_000), "User Number " + i,
+                    "/uploads/profile-images/" + hash + ".jpg", variants,
+                    random.nextInt(100_000), random.nextInt(2_000)));
+        }
+        page = new CursorPage<>(items, items.get(items.size() - 1).getId());
+
+        System.out.printf("%n%s, %d users: %d bytes, %d gzipped%n", format, pageSize, encode().length, encodeGzip().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 8192)) {
+            mapper.writeValue(gzip, page);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.service.FileUploadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash-and-store cost of profile image uploads by size. Each invocation
+ * writes distinct content so every upload takes the new-file path rather
+ * than the deduplicated one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FileUploadBenchmark {
+
+    @Param({"16384", "262144", "4194304"})
+    private int bytes;
+
+    private FileUploadService fileUploadService;
+    private byte[] content;
+    private long sequence;
+    private String lastUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fileUploadService = Fixtures.fileUploadService(new InMemoryMongoTemplate(new InMemoryStore()));
+        content = new byte[bytes];
+        new Random(42L).nextBytes(content);
+    }
+
+    @Benchmark
+    public String storeProfileImage() {
+        // Stamp a counter into the first bytes to defeat content deduplication
+        ByteBuffer.wrap(content).putLong(0, ++sequence);
+        lastUrl = fileUploadService.storeProfileImage(new ByteArrayInputStream(content), "image/jpeg", "photo.jpg", "bench");
+        return lastUrl;
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteUpload() throws IOException {
+        if (lastUrl != null) {
+            Files.deleteIfExists(fileUploadService.resolve(lastUrl));
+            lastUrl = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.service.AvailabilityService;
+import com.example.profilebackend.service.FeedService;
+import com.example.profilebackend.service.FileUploadService;
+import com.example.profilebackend.service.FollowCounters;
+import com.example.profilebackend.service.FollowGraphIndex;
+import com.example.profilebackend.service.ProfileCache;
+import com.example.profilebackend.service.UserSearchIndex;
+import com.example.profilebackend.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wires the real services by hand against the in-memory stand-ins, filling
+ * the same fields Spring would autowire.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static UserService userService(InMemoryStore store) {
+        InMemoryMongoTemplate mongoTemplate = new InMemoryMongoTemplate(store);
+
+        UserSearchIndex searchIndex = new UserSearchIndex();
+        AvailabilityService availabilityService = new AvailabilityService(store.users.size() * 2L, 0.01);
+        for (User user : store.users.values()) {
+            searchIndex.index(user);
+            availabilityService.register(user);
+        }
+
+        UserService userService = new UserService();
+        inject(userService, "userRepository", InMemoryRepositories.userRepository(store));
+        inject(userService, "followRepository", InMemoryRepositories.followRepository(store));
+        inject(userService, "mongoTemplate", mongoTemplate);
+        inject(userService, "userSearchIndex", searchIndex);
+        inject(userService, "profileCache", new ProfileCache(64L * 1024 * 1024, 200_000));
+        inject(userService, "fileUploadService", fileUploadService(mongoTemplate));
+        inject(userService, "availabilityService", availabilityService);
+        inject(userService, "feedService", new DetachedFeedService());
+        // Never flushed here, so follow benchmarks measure only the buffered path
+        inject(userService, "followCounters", new FollowCounters(21_600_000, 10_000));
+        inject(userService, "followGraphIndex", new FollowGraphIndex(1000));
+        return userService;
+    }
+
+    static FileUploadService fileUploadService(InMemoryMongoTemplate mongoTemplate) {
+        FileUploadService fileUploadService = new FileUploadService();
+        inject(fileUploadService, "mongoTemplate", mongoTemplate);
+        inject(fileUploadService, "meterRegistry", new SimpleMeterRegistry());
+        inject(fileUploadService, "eventPublisher", (ApplicationEventPublisher) event -> {
+        });
+        return fileUploadService;
+    }
+
+    // Timelines live in their own collections, which these benchmarks do not model
+    private static final class DetachedFeedService extends FeedService {
+        private DetachedFeedService() {
+            super(800, Integer.MAX_VALUE, 1000, 1, 100);
+        }
+
+        @Override
+        public void onFollow(String followerId, String followingId) {
+        }
+
+        @Override
+        public void onUnfollow(String followerId, String followingId) {
+        }
+
+        @Override
+        public void onFollowersCountChanged(String userId, int followersCount) {
+        }
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
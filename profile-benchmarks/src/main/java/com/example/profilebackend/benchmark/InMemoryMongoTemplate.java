@@ -0,0 +1,162 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.model.StoredFile;
+import com.example.profilebackend.model.User;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.Map;
+
+/**
+ * MongoTemplate whose single-document updates are applied to an
+ * {@link InMemoryStore}. Covers the by-id {@code $inc} updates the follow
+ * counters and upload reference counts use; anything else is rejected so a
+ * benchmark cannot silently measure a no-op.
+ */
+public class InMemoryMongoTemplate extends MongoTemplate {
+    private final InMemoryStore store;
+
+    public InMemoryMongoTemplate(InMemoryStore store) {
+        super(detachedFactory(), converter());
+        this.store = store;
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, UpdateDefinition update, Class<?> entityClass) {
+        if (entityClass == User.class) {
+            User user = store.users.get(idOf(query));
+            if (user == null) {
+                return UpdateResult.acknowledged(0, 0L, null);
+            }
+            applyIncrements(user, update);
+            return UpdateResult.acknowledged(1, 1L, null);
+        }
+        if (entityClass == StoredFile.class) {
+            boolean matched = store.fileRefs.computeIfPresent(idOf(query), (id, refs) -> refs + increment(update, "refCount")) != null;
+            return UpdateResult.acknowledged(matched ? 1 : 0, matched ? 1L : 0L, null);
+        }
+        throw unsupported("updateFirst", entityClass);
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, UpdateDefinition update, Class<?> entityClass) {
+        if (entityClass != StoredFile.class) {
+            throw unsupported("upsert", entityClass);
+        }
+        store.fileRefs.merge(idOf(query), increment(update, "refCount"), Long::sum);
+        return UpdateResult.acknowledged(1, 1L, null);
+    }
+
+    @Override
+    public DeleteResult remove(Query query, Class<?> entityClass) {
+        if (entityClass != StoredFile.class) {
+            throw unsupported("remove", entityClass);
+        }
+        String id = idOf(query);
+        Long refs = store.fileRefs.get(id);
+        boolean removed = refs != null && refs <= 0 && store.fileRefs.remove(id, refs);
+        return DeleteResult.acknowledged(removed ? 1 : 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options, Class<T> entityClass) {
+        if (entityClass != User.class) {
+            throw unsupported("findAndModify", entityClass);
+        }
+        User user = store.users.get(idOf(query));
+        if (user == null) {
+            return null;
+        }
+        synchronized (user) {
+            User before = counters(user);
+            applyIncrements(user, update);
+            return (T) (options.isReturnNew() ? counters(user) : before);
+        }
+    }
+
+    private static void applyIncrements(User user, UpdateDefinition update) {
+        Document increments = operator(update, "$inc");
+        synchronized (user) {
+            for (Map.Entry<String, Object> entry : increments.entrySet()) {
+                int delta = ((Number) entry.getValue()).intValue();
+                switch (entry.getKey()) {
+                    case "followersCount":
+                        user.setFollowersCount(user.getFollowersCount() + delta);
+                        break;
+                    case "followingCount":
+                        user.setFollowingCount(user.getFollowingCount() + delta);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("$inc on " + entry.getKey());
+                }
+            }
+        }
+    }
+
+    // Like a projected findAndModify result: only the id and the counters
+    private static User counters(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setFollowersCount(user.getFollowersCount());
+        copy.setFollowingCount(user.getFollowingCount());
+        return copy;
+    }
+
+    private static long increment(UpdateDefinition update, String field) {
+        return ((Number) operator(update, "$inc").get(field)).longValue();
+    }
+
+    private static Document operator(UpdateDefinition update, String name) {
+        Document document = update.getUpdateObject();
+        for (String key : document.keySet()) {
+            if (!key.equals(name) && !key.equals("$setOnInsert")) {
+                throw new UnsupportedOperationException("Update operator " + key);
+            }
+        }
+        Object operator = document.get(name);
+        return operator == null ? new Document() : (Document) operator;
+    }
+
+    private static String idOf(Query query) {
+        Object id = query.getQueryObject().get("id");
+        if (!(id instanceof String)) {
+            throw new UnsupportedOperationException("Only by-id queries are supported: " + query.getQueryObject());
+        }
+        return (String) id;
+    }
+
+    private static UnsupportedOperationException unsupported(String operation, Class<?> entityClass) {
+        return new UnsupportedOperationException(operation + " on " + entityClass.getSimpleName());
+    }
+
+    // The template never reaches the database, so the factory only has to
+    // satisfy the constructor
+    private static MongoDatabaseFactory detachedFactory() {
+        return InMemoryRepositories.proxy(MongoDatabaseFactory.class, (method, args) -> {
+            if (method.getName().equals("getExceptionTranslator")) {
+                return new MongoExceptionTranslator();
+            }
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            throw new UnsupportedOperationException("MongoDatabaseFactory." + method.getName());
+        });
+    }
+
+    private static MappingMongoConverter converter() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
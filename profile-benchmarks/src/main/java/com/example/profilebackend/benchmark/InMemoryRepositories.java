@@ -0,0 +1,132 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.User;
+import com.example.profilebackend.repository.FollowRepository;
+import com.example.profilebackend.repository.UserRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Dynamic-proxy implementations of the Spring Data repositories backed by an
+ * {@link InMemoryStore}. Only the methods the services call are supported.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static UserRepository userRepository(InMemoryStore store) {
+        return proxy(UserRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "findById":
+                    return Optional.ofNullable(store.users.get((String) args[0]));
+                case "existsById":
+                    return store.users.containsKey((String) args[0]);
+                case "findByUsername":
+                    return Optional.ofNullable(store.idsByUsername.get((String) args[0])).map(store.users::get);
+                case "existsByUsername":
+                    return store.idsByUsername.containsKey((String) args[0]);
+                case "existsByEmail":
+                    return store.users.values().stream().anyMatch(user -> args[0].equals(user.getEmail()));
+                case "insert":
+                case "save": {
+                    User user = (User) args[0];
+                    if ("insert".equals(method.getName()) && store.idsByUsername.containsKey(user.getUsername())) {
+                        throw new DuplicateKeyException("index: username dup key");
+                    }
+                    if (user.getId() == null) {
+                        user.setId(String.format("u%023x", store.users.size()));
+                    }
+                    store.addUser(user);
+                    return user;
+                }
+                case "findByIdIn":
+                    return project(((Collection<?>) args[0]).stream()
+                            .map(id -> store.users.get((String) id))
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()), (Class<?>) args[1]);
+                case "findAllBy":
+                    return project(new ArrayList<>(store.users.values()), (Class<?>) args[0]);
+                default:
+                    throw new UnsupportedOperationException("UserRepository." + method.getName());
+            }
+        });
+    }
+
+    public static FollowRepository followRepository(InMemoryStore store) {
+        return proxy(FollowRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "insert": {
+                    Follow follow = store.insertEdge((Follow) args[0]);
+                    if (follow == null) {
+                        throw new DuplicateKeyException("index: follower_following dup key");
+                    }
+                    return follow;
+                }
+                case "existsByFollowerIdAndFollowingId":
+                    return store.edgesByPair.containsKey(args[0] + "|" + args[1]);
+                case "deleteByFollowerIdAndFollowingId":
+                    return store.deleteEdge((String) args[0], (String) args[1]);
+                case "countByFollowingId":
+                    return (long) store.page(store.followersOf, (String) args[0], null, Integer.MAX_VALUE).size();
+                case "countByFollowerId":
+                    return (long) store.page(store.followingOf, (String) args[0], null, Integer.MAX_VALUE).size();
+                case "findByFollowingIdOrderByIdAsc":
+                    return store.page(store.followersOf, (String) args[0], null, ((Pageable) args[1]).getPageSize());
+                case "findByFollowingIdAndIdGreaterThanOrderByIdAsc":
+                    return store.page(store.followersOf, (String) args[0], (String) args[1], ((Pageable) args[2]).getPageSize());
+                case "findByFollowerIdOrderByIdAsc":
+                    return store.page(store.followingOf, (String) args[0], null, ((Pageable) args[1]).getPageSize());
+                case "findByFollowerIdAndIdGreaterThanOrderByIdAsc":
+                    return store.page(store.followingOf, (String) args[0], (String) args[1], ((Pageable) args[2]).getPageSize());
+                default:
+                    throw new UnsupportedOperationException("FollowRepository." + method.getName());
+            }
+        });
+    }
+
+    // Mirrors Mongo DTO projections: the summary only carries the projected fields
+    private static List<?> project(List<User> users, Class<?> type) {
+        if (type != UserSummary.class) {
+            return users;
+        }
+        return users.stream()
+                .map(user -> new UserSummary(user.getId(), user.getUsername(), user.getName(), user.getAvatarUrl(),
+                        user.getAvatarVariants(), user.getFollowersCount(), user.getFollowingCount()))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + "(in-memory)";
+                }
+            }
+            return handler.handle(method, args == null ? new Object[0] : args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler);
+    }
+
+    interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
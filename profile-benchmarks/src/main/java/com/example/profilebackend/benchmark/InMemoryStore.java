@@ -0,0 +1,136 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap-backed stand-in for the users, follows and stored_files collections.
+ *
+ * Edge ids are zero-padded hex counters, so their string order matches the
+ * ObjectId insertion order the real keyset paging relies on.
+ */
+public class InMemoryStore {
+    private static final String[] FIRST_NAMES = {
+        "Amaan", "Priya", "John", "Jane", "Carlos", "Mei", "Omar", "Sara", "Liam", "Aisha",
+        "Noah", "Emma", "Ravi", "Yuki", "Lucas", "Zara", "Ethan", "Nina", "Arjun", "Chloe"
+    };
+    private static final String[] LAST_NAMES = {
+        "Khan", "Sharma", "Doe", "Smith", "Garcia", "Chen", "Ali", "Cohen", "Brown", "Patel",
+        "Wilson", "Tanaka", "Silva", "Martin", "Lee", "Nguyen", "Kumar", "Lopez", "Rossi", "Meyer"
+    };
+    private static final String[] BIO_WORDS = {
+        "travel", "coffee", "photography", "music", "football", "design", "food", "books",
+        "fitness", "art", "coding", "nature", "cinema", "fashion", "gaming", "yoga"
+    };
+
+    final Map<String, User> users = new ConcurrentHashMap<>();
+    final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
+    final Map<String, Follow> edgesByPair = new ConcurrentHashMap<>();
+    final Map<String, NavigableMap<String, Follow>> followersOf = new ConcurrentHashMap<>();
+    final Map<String, NavigableMap<String, Follow>> followingOf = new ConcurrentHashMap<>();
+    final Map<String, Long> fileRefs = new ConcurrentHashMap<>();
+
+    private final AtomicLong edgeSequence = new AtomicLong();
+    private final List<String> userIds = new ArrayList<>();
+
+    /**
+     * Seeds users with a power-law follow graph: out-degrees follow a Pareto
+     * distribution with the given mean and targets are drawn from a Zipf
+     * distribution over user rank, so a few accounts collect most followers.
+     */
+    public void seed(int userCount, double averageFollows, long randomSeed) {
+        Random random = new Random(randomSeed);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User();
+            user.setId(String.format("%024x", i));
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            user.setName(first + " " + last);
+            user.setUsername(first.toLowerCase() + "_" + last.toLowerCase() + i);
+            user.setEmail(user.getUsername() + "@example.com");
+            user.setBio(BIO_WORDS[random.nextInt(BIO_WORDS.length)] + " and "
+                    + BIO_WORDS[random.nextInt(BIO_WORDS.length)] + " lover");
+            addUser(user);
+        }
+
+        double[] cumulative = new double[userCount];
+        double total = 0;
+        for (int rank = 0; rank < userCount; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+
+        double minimumFollows = averageFollows / 2;
+        for (int i = 0; i < userCount; i++) {
+            String followerId = userIds.get(i);
+            double pareto = minimumFollows / Math.sqrt(1 - random.nextDouble());
+            int follows = (int) Math.min(userCount - 1, Math.round(pareto));
+            for (int j = 0; j < follows; j++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                String followingId = userIds.get(Math.min(userCount - 1, rank < 0 ? -rank - 1 : rank));
+                if (!followerId.equals(followingId) && insertEdge(new Follow(followerId, followingId)) != null) {
+                    users.get(followerId).setFollowingCount(users.get(followerId).getFollowingCount() + 1);
+                    users.get(followingId).setFollowersCount(users.get(followingId).getFollowersCount() + 1);
+                }
+            }
+        }
+    }
+
+    public List<String> userIds() {
+        return userIds;
+    }
+
+    void addUser(User user) {
+        users.put(user.getId(), user);
+        idsByUsername.put(user.getUsername(), user.getId());
+        userIds.add(user.getId());
+    }
+
+    // Returns null when the pair already exists, like the unique follows index
+    Follow insertEdge(Follow follow) {
+        String key = follow.getFollowerId() + "|" + follow.getFollowingId();
+        follow.setId(String.format("%024x", edgeSequence.incrementAndGet()));
+        if (edgesByPair.putIfAbsent(key, follow) != null) {
+            return null;
+        }
+        followersOf.computeIfAbsent(follow.getFollowingId(), k -> new ConcurrentSkipListMap<>()).put(follow.getId(), follow);
+        followingOf.computeIfAbsent(follow.getFollowerId(), k -> new ConcurrentSkipListMap<>()).put(follow.getId(), follow);
+        return follow;
+    }
+
+    long deleteEdge(String followerId, String followingId) {
+        Follow follow = edgesByPair.remove(followerId + "|" + followingId);
+        if (follow == null) {
+            return 0;
+        }
+        followersOf.get(followingId).remove(follow.getId());
+        followingOf.get(followerId).remove(follow.getId());
+        return 1;
+    }
+
+    List<Follow> page(Map<String, NavigableMap<String, Follow>> index, String userId, String cursor, int limit) {
+        NavigableMap<String, Follow> edges = index.get(userId);
+        if (edges == null) {
+            return new ArrayList<>();
+        }
+        NavigableMap<String, Follow> tail = cursor == null ? edges : edges.tailMap(cursor, false);
+        List<Follow> page = new ArrayList<>(limit);
+        for (Follow follow : tail.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(follow);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.controller.UploadController;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of GET /uploads/** through UploadController against the
+ * generic ResourceHttpRequestHandler it replaced, configured as the old
+ * WebConfig did. Bodies are counted and discarded, so the numbers cover the
+ * handler and the copy out of the file, not a network.
+ *
+ * Besides requests per second this reports MB/s served (the megabytes row,
+ * which JMH labels ops/s) and the benchmark thread's CPU time per request in
+ * microseconds (cpuMicrosPerRequest). A mock request never offers sendfile, so
+ * UploadController is measured on its copying fallback; with Tomcat's
+ * sendfile the body is not copied in user space at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UploadServingBenchmark {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Param({"16384", "262144", "4194304"})
+    private int bytes;
+
+    @Param({"upload-controller", "resource-handler"})
+    private String handler;
+
+    private Path root;
+    private String relativePath;
+    private UploadController uploadController;
+    private ResourceHttpRequestHandler resourceHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        byte[] content = new byte[bytes];
+        new Random(42L).nextBytes(content);
+        byte[] hash = new byte[32];
+        new Random(bytes).nextBytes(hash);
+        relativePath = "profile-images/" + HexFormat.of().formatHex(hash) + ".jpg";
+
+        root = Files.createTempDirectory("upload-serving");
+        Files.createDirectories(root.resolve("profile-images"));
+        Files.write(root.resolve(relativePath), content);
+
+        uploadController = new UploadController(root.toString(), 10_000);
+        resourceHandler = new ResourceHttpRequestHandler();
+        resourceHandler.setLocations(List.of(new FileSystemResource(root.toString() + "/")));
+        resourceHandler.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+        resourceHandler.setEtagGenerator(resource -> {
+            String filename = resource.getFilename();
+            int dot = filename == null ? -1 : filename.lastIndexOf('.');
+            return dot > 0 ? filename.substring(0, dot) : filename;
+        });
+        resourceHandler.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public int serve(Transfer transfer, CpuTime cpuTime) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + relativePath);
+        DiscardingResponse response = new DiscardingResponse();
+        if ("upload-controller".equals(handler)) {
+            uploadController.serve(request, response);
+        } else {
+            request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, relativePath);
+            resourceHandler.handleRequest(request, response);
+        }
+        transfer.megabytes += response.written / (1024.0 * 1024.0);
+        cpuTime.requests++;
+        return response.getStatus();
+    }
+
+    /**
+     * Served megabytes, reported per second like the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    /**
+     * CPU time of the benchmark thread per request, reported as-is.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuTime {
+        private long requests;
+        private long cpuStart;
+        private double cpuMicros;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            requests = 0;
+            cpuStart = THREADS.getCurrentThreadCpuTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            cpuMicros = (THREADS.getCurrentThreadCpuTime() - cpuStart) / 1000.0;
+        }
+
+        public double cpuMicrosPerRequest() {
+            return requests == 0 ? 0 : cpuMicros / requests;
+        }
+    }
+
+    // Counts the body instead of keeping it, so large files do not dominate allocation
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+        private long written;
+
+        private final ServletOutputStream body = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                written += length;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return body;
+        }
+    }
+}
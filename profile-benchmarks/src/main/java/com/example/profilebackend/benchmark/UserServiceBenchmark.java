@@ -0,0 +1,110 @@
+package com.example.profilebackend.benchmark;
+
+import com.example.profilebackend.dto.UserSummary;
+import com.example.profilebackend.model.CursorPage;
+import com.example.profilebackend.model.Follow;
+import com.example.profilebackend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService hot paths over a seeded power-law follow graph. Run with
+ * {@code -p users=1000000} (and a large enough heap) for the full-size graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserServiceBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    @Param({"10"})
+    private double avgFollows;
+
+    @Param({"50"})
+    private int pageSize;
+
+    private InMemoryStore store;
+    private UserService userService;
+    private List<String> userIds;
+    private String celebrityId;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new InMemoryStore();
+        store.seed(users, avgFollows, 42L);
+        userService = Fixtures.userService(store);
+        userIds = store.userIds();
+
+        // Zipf rank 0 collects the most followers; start the deep page halfway down its list
+        celebrityId = userIds.get(0);
+        NavigableMap<String, Follow> followers = store.followersOf.get(celebrityId);
+        Iterator<String> edgeIds = followers.keySet().iterator();
+        for (int i = 0; i < followers.size() / 2 - 1; i++) {
+            edgeIds.next();
+        }
+        deepCursor = edgeIds.next();
+    }
+
+    @Benchmark
+    public List<UserSummary> searchContains() {
+        return userService.searchUsers("sharma", false, 0, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> searchPrefix() {
+        return userService.searchUsers("pri", true, 0, 20);
+    }
+
+    @Benchmark
+    public CursorPage<UserSummary> followersFirstPage() {
+        return userService.getFollowers(celebrityId, null, pageSize);
+    }
+
+    @Benchmark
+    public CursorPage<UserSummary> followersDeepPage() {
+        return userService.getFollowers(celebrityId, deepCursor, pageSize);
+    }
+
+    @Benchmark
+    public CursorPage<UserSummary> followingFirstPage() {
+        return userService.getFollowing(randomUser(), null, pageSize);
+    }
+
+    // Paired so the graph, and with it every other benchmark, stays the same size
+    @Benchmark
+    public void followUnfollow() {
+        String followerId = randomUser();
+        String followingId = randomUser();
+        if (followerId.equals(followingId)) {
+            return;
+        }
+        userService.followUser(followerId, followingId);
+        userService.unfollowUser(followerId, followingId);
+    }
+
+    private String randomUser() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+}
@@ -45,7 +45,12 @@ const Profile = ({ currentUser, onLogout }) => {
         headers: {
           'Content-Type': 'application/json',
         },
-        body: JSON.stringify(editedProfile),
+        // Images are changed through the upload endpoints only
+        body: JSON.stringify({
+          name: editedProfile.name,
+          bio: editedProfile.bio,
+          isPrivate: editedProfile.isPrivate,
+        }),
       });
 
       if (response.ok) {
@@ -128,7 +133,7 @@ const Profile = ({ currentUser, onLogout }) => {
       const response = await fetch(`http://localhost:8080/api/users/followers/${profile.id}`);
       if (response.ok) {
         const followersData = await response.json();
-        setFollowers(followersData);
+        setFollowers(followersData.items);
         setShowFollowers(true);
       }
     } catch (error) {
@@ -141,7 +146,7 @@ const Profile = ({ currentUser, onLogout }) => {
       const response = await fetch(`http://localhost:8080/api/users/following/${profile.id}`);
       if (response.ok) {
         const followingData = await response.json();
-        setFollowing(followingData);
+        setFollowing(followingData.items);
         setShowFollowing(true);
       }
     } catch (error) {
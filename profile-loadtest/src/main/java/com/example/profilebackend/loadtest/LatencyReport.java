@@ -0,0 +1,115 @@
+package com.example.profilebackend.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint HdrHistogram latency recorders. Values are recorded in
+ * microseconds and reported in milliseconds.
+ */
+public class LatencyReport {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public void record(String endpoint, long nanos, boolean error) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        recorders.computeIfAbsent(endpoint, key -> new Recorder(HIGHEST_TRACKABLE_MICROS, 3)).recordValue(micros);
+        if (error) {
+            errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+        }
+    }
+
+    // Scenario starts skipped because too many were already in flight
+    public void dropped() {
+        dropped.increment();
+    }
+
+    // Discards everything recorded so far, used at the end of the warmup
+    public void reset() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        dropped.reset();
+    }
+
+    /**
+     * Prints a summary table and writes one percentile distribution file per
+     * endpoint (.hgrm, loadable in HdrHistogram's plotter) into outputDir.
+     * Returns the reported histograms by endpoint.
+     */
+    public Map<String, Histogram> report(PrintStream out, double seconds, Path outputDir) throws IOException {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+
+        Files.createDirectories(outputDir);
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            LongAdder errorCount = errors.get(entry.getKey());
+            out.printf("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(),
+                    histogram.getTotalCount(),
+                    errorCount == null ? 0 : errorCount.sum(),
+                    histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+
+            Path file = outputDir.resolve(entry.getKey().replaceAll("[^A-Za-z0-9]+", "-").toLowerCase() + ".hgrm");
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(hgrm, MICROS_PER_MILLI);
+            }
+        }
+        if (dropped.sum() > 0) {
+            out.printf("%d scenario starts were dropped because the in-flight limit was reached%n", dropped.sum());
+        }
+        out.printf("Percentile distributions written to %s%n", outputDir.toAbsolutePath());
+        return histograms;
+    }
+
+    /**
+     * Prints several runs of the same load next to each other, one row per
+     * endpoint and run.
+     */
+    public static void compare(PrintStream out, Map<String, Map<String, Histogram>> runs, double seconds) {
+        Set<String> endpoints = new TreeSet<>();
+        runs.values().forEach(histograms -> endpoints.addAll(histograms.keySet()));
+
+        out.printf("%n%-28s %-10s %9s %9s %9s %9s %9s%n", "endpoint", "run", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String endpoint : endpoints) {
+            runs.forEach((run, histograms) -> {
+                Histogram histogram = histograms.get(endpoint);
+                if (histogram == null) {
+                    out.printf("%-28s %-10s %9s%n", endpoint, run, "-");
+                    return;
+                }
+                out.printf("%-28s %-10s %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                        endpoint,
+                        run,
+                        histogram.getTotalCount() / seconds,
+                        histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                        histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                        histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                        histogram.getMaxValue() / MICROS_PER_MILLI);
+            });
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.profilebackend.loadtest;
+
+import com.example.profilebackend.ProfileBackendApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the profile API.
+ *
+ * Scenario iterations start at a fixed rate regardless of how fast earlier
+ * ones complete, and the first request of each iteration is timed from its
+ * scheduled start, so a slow server shows up as latency instead of as a
+ * quietly lower request rate (no coordinated omission).
+ *
+ * Options (all --name=value): base-url, embedded, profile, threads,
+ * collection, scenarios, rate, duration, warmup, users, follows,
+ * max-in-flight, timeout, image-side, out. With --embedded,
+ * --threads=platform,virtual runs the same load once per thread mode, each
+ * against a fresh backend, and prints the runs side by side.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        ObjectMapper mapper = new ObjectMapper();
+        boolean embedded = Boolean.parseBoolean(options.getOrDefault("embedded", "false"));
+        List<String> threadModes = options.containsKey("threads")
+                ? List.of(options.get("threads").split(","))
+                : Collections.singletonList(null);
+        if (options.containsKey("threads") && !embedded) {
+            throw new IllegalArgumentException("--threads only applies to --embedded");
+        }
+
+        PostmanCollection collection = PostmanCollection.load(
+                Paths.get(options.getOrDefault("collection", "../profile-backend/Instagram_Clone_API.postman_collection.json")), mapper);
+        List<Scenario> scenarios = loadScenarios(options.get("scenarios"), mapper);
+        scenarios.forEach(scenario -> scenario.getSteps().forEach(step -> collection.request(step.getRequest())));
+        int duration = intOption(options, "duration", 60);
+        Path out = Paths.get(options.getOrDefault("out", "target/loadtest"));
+
+        // One fresh backend and data set per thread mode, run back to back
+        Map<String, Map<String, Histogram>> runs = new LinkedHashMap<>();
+        for (String threads : threadModes) {
+            ConfigurableApplicationContext app = null;
+            String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+            if (embedded) {
+                app = startEmbedded(options.get("profile"), threads == null ? null : threads.trim());
+                baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                if (threads != null) {
+                    System.out.printf("%n== %s threads ==%n", threads.trim());
+                }
+                LatencyReport report = runLoad(options, mapper, collection, scenarios, baseUrl);
+                runs.put(threads == null ? "" : threads.trim(),
+                        report.report(System.out, duration, threads == null ? out : out.resolve(threads.trim())));
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+        if (runs.size() > 1) {
+            LatencyReport.compare(System.out, runs, duration);
+        }
+    }
+
+    private static LatencyReport runLoad(Map<String, String> options, ObjectMapper mapper, PostmanCollection collection,
+                                         List<Scenario> scenarios, String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        RequestRunner runner = new RequestRunner(client, mapper, collection,
+                Duration.ofSeconds(intOption(options, "timeout", 30)), intOption(options, "image-side", 512));
+
+        UserPool pool = new UserPool(baseUrl);
+        pool.seed(runner, intOption(options, "users", 1000), intOption(options, "follows", 10), 64);
+
+        LatencyReport report = new LatencyReport();
+        int rate = intOption(options, "rate", 200);
+        int duration = intOption(options, "duration", 60);
+        int warmup = intOption(options, "warmup", 10);
+        System.out.printf("Running %d scenarios/s against %s for %ds after a %ds warmup%n", rate, baseUrl, duration, warmup);
+        run(runner, pool, scenarios, report, rate, warmup, duration, intOption(options, "max-in-flight", 10_000));
+        return report;
+    }
+
+    private static void run(RequestRunner runner, UserPool pool, List<Scenario> scenarios, LatencyReport report,
+                            int rate, int warmupSeconds, int durationSeconds, int maxInFlight) throws InterruptedException {
+        int[] cumulativeWeights = new int[scenarios.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            totalWeight += scenarios.get(i).getWeight();
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        boolean warm = warmupSeconds == 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + i * interval;
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!warm && scheduled >= measureFrom) {
+                    report.reset();
+                    warm = true;
+                }
+                if (!inFlight.tryAcquire()) {
+                    report.dropped();
+                    continue;
+                }
+                Scenario scenario = pick(scenarios, cumulativeWeights, totalWeight);
+                executor.execute(() -> {
+                    try {
+                        runScenario(runner, pool, scenario, report, scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private static void runScenario(RequestRunner runner, UserPool pool, Scenario scenario,
+                                    LatencyReport report, long scheduled) {
+        Map<String, String> variables = pool.variablesForIteration();
+        boolean failed = false;
+        for (int i = 0; i < scenario.getSteps().size(); i++) {
+            Scenario.Step step = scenario.getSteps().get(i);
+            long started = i == 0 ? scheduled : System.nanoTime();
+            try {
+                RequestRunner.Response response = runner.execute(step, variables);
+                report.record(step.getRequest(), System.nanoTime() - started, response.isError());
+                if (response.isError() || !runner.capture(step, response, variables)) {
+                    failed = response.isError();
+                    break;
+                }
+            } catch (IOException e) {
+                report.record(step.getRequest(), System.nanoTime() - started, true);
+                failed = true;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        report.record("scenario " + scenario.getName(), System.nanoTime() - scheduled, failed);
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int[] cumulativeWeights, int totalWeight) {
+        int point = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    // Runs the backend in this JVM against a throwaway mongod on a random port.
+    // threads is platform or virtual, or null for the backend's own setting.
+    private static ConfigurableApplicationContext startEmbedded(String profile, String threads) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.data.mongodb.port=0",
+                "--de.flapdoodle.mongodb.embedded.version=7.0.12",
+                "--logging.level.com.example.profilebackend=INFO"));
+        if (profile != null) {
+            args.add("--spring.profiles.active=" + profile);
+        }
+        if (threads != null) {
+            if (!threads.equals("platform") && !threads.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown thread mode: " + threads);
+            }
+            args.add("--spring.threads.virtual.enabled=" + threads.equals("virtual"));
+        }
+        return new SpringApplicationBuilder(ProfileBackendApplication.class).run(args.toArray(new String[0]));
+    }
+
+    private static List<Scenario> loadScenarios(String path, ObjectMapper mapper) throws IOException {
+        if (path != null) {
+            return mapper.readValue(Files.readAllBytes(Path.of(path)), Scenario.Config.class).getScenarios();
+        }
+        try (InputStream in = LoadTest.class.getResourceAsStream("/scenarios.json")) {
+            return mapper.readValue(in, Scenario.Config.class).getScenarios();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.profilebackend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request templates read from the Postman collection, addressed by their
+ * Postman names ("Get Profile by ID", "Follow User", ...). Folders are
+ * flattened. The collection's literal TARGET_USER_ID placeholder is turned
+ * into a {{target_user_id}} variable like the others.
+ */
+public class PostmanCollection {
+    private final Map<String, RequestTemplate> requests = new LinkedHashMap<>();
+    private final Map<String, String> variables = new LinkedHashMap<>();
+
+    public static PostmanCollection load(Path file, ObjectMapper mapper) throws IOException {
+        JsonNode root = mapper.readTree(file.toFile());
+        PostmanCollection collection = new PostmanCollection();
+        for (JsonNode variable : root.path("variable")) {
+            collection.variables.put(variable.path("key").asText(), variable.path("value").asText());
+        }
+        collection.collect(root.path("item"));
+        return collection;
+    }
+
+    private void collect(JsonNode items) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.path("item"));
+                continue;
+            }
+            // The collection lists /api/users/all twice; the first name wins
+            requests.putIfAbsent(item.path("name").asText(), RequestTemplate.from(item));
+        }
+    }
+
+    public RequestTemplate request(String name) {
+        RequestTemplate template = requests.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No request named '" + name + "' in the Postman collection");
+        }
+        return template;
+    }
+
+    public Map<String, String> variables() {
+        return variables;
+    }
+
+    public static class RequestTemplate {
+        private final String name;
+        private final String method;
+        private final String url;
+        private final String rawBody;
+        private final String fileField;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private RequestTemplate(String name, String method, String url, String rawBody, String fileField) {
+            this.name = name;
+            this.method = method;
+            this.url = url;
+            this.rawBody = rawBody;
+            this.fileField = fileField;
+        }
+
+        static RequestTemplate from(JsonNode item) {
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            String rawUrl = (url.isTextual() ? url.asText() : url.path("raw").asText())
+                    .replace("TARGET_USER_ID", "{{target_user_id}}");
+
+            JsonNode body = request.path("body");
+            String rawBody = "raw".equals(body.path("mode").asText()) ? body.path("raw").asText() : null;
+            String fileField = null;
+            if ("formdata".equals(body.path("mode").asText())) {
+                for (JsonNode field : body.path("formdata")) {
+                    if ("file".equals(field.path("type").asText())) {
+                        fileField = field.path("key").asText();
+                    }
+                }
+            }
+
+            RequestTemplate template = new RequestTemplate(item.path("name").asText(),
+                    request.path("method").asText("GET"), rawUrl, rawBody, fileField);
+            for (JsonNode header : request.path("header")) {
+                if (!header.path("disabled").asBoolean(false)) {
+                    template.headers.put(header.path("key").asText(), header.path("value").asText());
+                }
+            }
+            return template;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getRawBody() {
+            return rawBody;
+        }
+
+        public String getFileField() {
+            return fileField;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+    }
+}
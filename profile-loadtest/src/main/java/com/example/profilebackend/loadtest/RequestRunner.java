@@ -0,0 +1,173 @@
+package com.example.profilebackend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a scenario step plus the current variables into an HTTP request
+ * built from its Postman template, and sends it.
+ */
+public class RequestRunner {
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{([A-Za-z0-9_]+)\\}\\}");
+    private static final String BOUNDARY = "----profile-loadtest-boundary";
+
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    private final PostmanCollection collection;
+    private final Duration timeout;
+    private final byte[] image;
+    private final AtomicLong uploadSequence = new AtomicLong();
+
+    public RequestRunner(HttpClient client, ObjectMapper mapper, PostmanCollection collection,
+                         Duration timeout, int imageSide) throws IOException {
+        this.client = client;
+        this.mapper = mapper;
+        this.collection = collection;
+        this.timeout = timeout;
+        this.image = noiseJpeg(imageSide);
+    }
+
+    public Response execute(Scenario.Step step, Map<String, String> variables) throws IOException, InterruptedException {
+        PostmanCollection.RequestTemplate template = collection.request(step.getRequest());
+        Map<String, String> scoped = new HashMap<>(variables);
+        step.getVars().forEach((name, value) -> scoped.put(name, substitute(value, variables)));
+
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(substitute(template.getUrl(), scoped));
+        step.getQuery().forEach((name, value) -> uri.replaceQueryParam(name, substitute(value, scoped)));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri.encode().build().toUri()).timeout(timeout);
+        template.getHeaders().forEach((name, value) -> request.header(name, substitute(value, scoped)));
+
+        if (template.getFileField() != null) {
+            request.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+            request.method(template.getMethod(), HttpRequest.BodyPublishers.ofByteArray(multipart(template.getFileField())));
+        } else if (template.getRawBody() != null || !step.getBody().isEmpty()) {
+            request.method(template.getMethod(), HttpRequest.BodyPublishers.ofString(jsonBody(template, step, scoped)));
+        } else {
+            request.method(template.getMethod(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return new Response(response.statusCode(), response.body());
+    }
+
+    /**
+     * Copies the step's capture paths from the response into the variables.
+     * Returns false when a path is missing, e.g. a search with no results.
+     */
+    public boolean capture(Scenario.Step step, Response response, Map<String, String> variables) throws IOException {
+        if (step.getCapture().isEmpty()) {
+            return true;
+        }
+        JsonNode root = mapper.readTree(response.body());
+        for (Map.Entry<String, String> capture : step.getCapture().entrySet()) {
+            JsonNode node = root;
+            for (String segment : capture.getValue().split("\\.")) {
+                node = node.isArray() && segment.chars().allMatch(Character::isDigit)
+                        ? node.path(Integer.parseInt(segment))
+                        : node.path(segment);
+            }
+            if (node.isMissingNode() || node.isNull()) {
+                return false;
+            }
+            variables.put(capture.getKey(), node.asText());
+        }
+        return true;
+    }
+
+    private String jsonBody(PostmanCollection.RequestTemplate template, Scenario.Step step,
+                            Map<String, String> variables) throws IOException {
+        ObjectNode body = template.getRawBody() == null
+                ? mapper.createObjectNode()
+                : (ObjectNode) mapper.readTree(substitute(template.getRawBody(), variables));
+        step.getBody().forEach((name, value) -> body.set(name, value instanceof String
+                ? body.textNode(substitute((String) value, variables))
+                : mapper.valueToTree(value)));
+        return mapper.writeValueAsString(body);
+    }
+
+    // Trailing bytes after the JPEG end marker are ignored by decoders but give
+    // every upload a distinct content hash, so none hit the deduplicated path
+    private byte[] multipart(String field) {
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + field + "\"; filename=\"loadtest.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(headBytes.length + image.length + Long.BYTES + tailBytes.length)
+                .put(headBytes)
+                .put(image)
+                .putLong(uploadSequence.incrementAndGet() ^ System.nanoTime())
+                .put(tailBytes)
+                .array();
+    }
+
+    static String substitute(String template, Map<String, String> variables) {
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = variables.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Unbound variable {{" + matcher.group(1) + "}} in: " + template);
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static byte[] noiseJpeg(int side) throws IOException {
+        BufferedImage noise = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42L);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                noise.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(noise, "jpg", out);
+        return out.toByteArray();
+    }
+
+    public static final class Response {
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public boolean isError() {
+            return status >= 400;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.profilebackend.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A weighted user flow: an ordered list of Postman requests run by one
+ * virtual user. Loaded from scenarios.json.
+ */
+@Data
+public class Scenario {
+    private String name;
+    private int weight;
+    private List<Step> steps = new ArrayList<>();
+
+    /**
+     * One request of a flow. All values may use {{variables}}.
+     *
+     * vars    - rebinds variables for this request only, e.g. user_id -> {{target_user_id}}
+     * query   - sets or replaces query parameters on the Postman URL
+     * body    - sets or replaces top-level fields of the Postman JSON body
+     * capture - stores fields of the JSON response as variables for later steps;
+     *           paths are dotted and may index arrays, e.g. "0.id"
+     */
+    @Data
+    public static class Step {
+        private String request;
+        private Map<String, String> vars = new LinkedHashMap<>();
+        private Map<String, String> query = new LinkedHashMap<>();
+        private Map<String, Object> body = new LinkedHashMap<>();
+        private Map<String, String> capture = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Config {
+        private List<Scenario> scenarios = new ArrayList<>();
+    }
+}
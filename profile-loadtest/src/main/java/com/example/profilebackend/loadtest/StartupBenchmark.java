@@ -0,0 +1,202 @@
+package com.example.profilebackend.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start cost of the backend per build mode. Each run launches a fresh
+ * process and measures from launch until the ready path first answers 200,
+ * then reads the process's resident set size from /proc (Linux only).
+ *
+ * Modes: jvm (the exec jar), aot (AOT-processed plain jar), cds (aot plus
+ * the class-data sharing archive) and native (the GraalVM executable); build
+ * them with mvn package, mvn -Paot package and mvn -Pnative package.
+ *
+ * Options (all --name=value): backend-dir, modes, runs, mongo-uri,
+ * ready-path, timeout, out.
+ */
+public class StartupBenchmark {
+    private static final String JAR = "target/profile-backend-0.0.1-SNAPSHOT.jar";
+    private static final String EXEC_JAR = "target/profile-backend-0.0.1-SNAPSHOT-exec.jar";
+    private static final String CDS_ARCHIVE = "target/app.jsa";
+    private static final String NATIVE_IMAGE = "target/profile-backend";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Path backendDir = Paths.get(options.getOrDefault("backend-dir", "../profile-backend")).toAbsolutePath().normalize();
+        List<String> modes = List.of(options.getOrDefault("modes", "jvm,aot,cds,native").split(","));
+        int runs = intOption(options, "runs", 5);
+        String mongoUri = options.getOrDefault("mongo-uri", "mongodb://localhost:27017/startup-benchmark");
+        String readyPath = options.getOrDefault("ready-path", "/actuator/health");
+        Duration timeout = Duration.ofSeconds(intOption(options, "timeout", 120));
+        Path out = Paths.get(options.getOrDefault("out", "target/startup"));
+        Files.createDirectories(out);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        Map<String, List<Sample>> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            List<String> command = command(mode.trim(), backendDir);
+            if (command == null) {
+                System.out.printf("Skipping %s: build output not found in %s%n", mode, backendDir);
+                continue;
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                Sample sample = launch(client, command, backendDir, mongoUri, readyPath, timeout,
+                        out.resolve(mode + "-" + run + ".log").toAbsolutePath());
+                System.out.printf("%-6s run %d: ready in %d ms, RSS %s%n", mode, run, sample.readyMillis, formatRss(sample.rssKb));
+                samples.add(sample);
+            }
+            results.put(mode, samples);
+        }
+
+        System.out.printf("%n%-8s %10s %10s %10s %12s%n", "mode", "p50 ms", "min ms", "max ms", "p50 RSS");
+        results.forEach((mode, samples) -> {
+            List<Long> ready = new ArrayList<>();
+            List<Long> rss = new ArrayList<>();
+            samples.forEach(sample -> {
+                ready.add(sample.readyMillis);
+                rss.add(sample.rssKb);
+            });
+            Collections.sort(ready);
+            Collections.sort(rss);
+            System.out.printf("%-8s %10d %10d %10d %12s%n", mode, median(ready), ready.get(0),
+                    ready.get(ready.size() - 1), formatRss(median(rss)));
+        });
+    }
+
+    // Null when the mode's build output is missing
+    private static List<String> command(String mode, Path backendDir) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        switch (mode) {
+            case "jvm":
+                return Files.exists(backendDir.resolve(EXEC_JAR)) ? List.of(java, "-jar", EXEC_JAR) : null;
+            case "aot":
+                return Files.isDirectory(backendDir.resolve("target/lib"))
+                        ? List.of(java, "-Dspring.aot.enabled=true", "-jar", JAR) : null;
+            case "cds":
+                // Same relative jar path as the training run, or the JVM refuses the archive
+                return Files.exists(backendDir.resolve(CDS_ARCHIVE))
+                        ? List.of(java, "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + CDS_ARCHIVE, "-jar", JAR) : null;
+            case "native":
+                return Files.isExecutable(backendDir.resolve(NATIVE_IMAGE)) ? List.of("./" + NATIVE_IMAGE) : null;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    private static Sample launch(HttpClient client, List<String> command, Path backendDir, String mongoUri,
+                                 String readyPath, Duration timeout, Path log) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> args = new ArrayList<>(command);
+        args.add("--server.port=" + port);
+        args.add("--spring.data.mongodb.uri=" + mongoUri);
+        args.add("--logging.level.com.example.profilebackend=INFO");
+        HttpRequest ready = HttpRequest.newBuilder(URI.create("http://localhost:" + port + readyPath))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(args)
+                .directory(backendDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = started + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new RuntimeException("Backend exited with code " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new RuntimeException("Backend not ready after " + timeout.toSeconds() + "s, see " + log);
+                }
+                try {
+                    if (client.send(ready, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new Sample(readyMillis, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // VmRSS from /proc/<pid>/status, or -1 where /proc is not available
+    private static long rssKb(long pid) throws IOException {
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+            }
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> sorted) {
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static String formatRss(long kb) {
+        return kb < 0 ? "n/a" : String.format("%.1f MB", kb / 1024.0);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static final class Sample {
+        private final long readyMillis;
+        private final long rssKb;
+
+        private Sample(long readyMillis, long rssKb) {
+            this.readyMillis = readyMillis;
+            this.rssKb = rssKb;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.profilebackend.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts created through the signup request before the run, plus a
+ * power-law follow graph between them. Each scenario iteration acts as a
+ * uniformly chosen user and looks at a Zipf-chosen target, so a few
+ * profiles receive most of the read traffic, as in production.
+ */
+public class UserPool {
+    private static final String[] FIRST_NAMES = {
+        "Amaan", "Priya", "John", "Jane", "Carlos", "Mei", "Omar", "Sara", "Liam", "Aisha",
+        "Noah", "Emma", "Ravi", "Yuki", "Lucas", "Zara", "Ethan", "Nina", "Arjun", "Chloe"
+    };
+    private static final String[] LAST_NAMES = {
+        "Khan", "Sharma", "Doe", "Smith", "Garcia", "Chen", "Ali", "Cohen", "Brown", "Patel",
+        "Wilson", "Tanaka", "Silva", "Martin", "Lee", "Nguyen", "Kumar", "Lopez", "Rossi", "Meyer"
+    };
+    private static final String PASSWORD = "password123";
+
+    private final String baseUrl;
+    private final String runId;
+    private final List<Member> members = new ArrayList<>();
+    private final AtomicLong iterations = new AtomicLong();
+    private double[] cumulative = new double[0];
+
+    public UserPool(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.runId = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+    }
+
+    public void seed(RequestRunner runner, int userCount, int averageFollows, int concurrency) throws InterruptedException {
+        Scenario.Step signup = new Scenario.Step();
+        signup.setRequest("User Signup");
+        signup.getBody().put("name", "{{name}}");
+        signup.getBody().put("username", "{{username}}");
+        signup.getBody().put("email", "{{username}}@loadtest.example");
+        signup.getBody().put("password", PASSWORD);
+        signup.getCapture().put("user_id", "id");
+
+        Member[] created = new Member[userCount];
+        AtomicInteger failures = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency, Thread.ofVirtual().factory())) {
+            for (int i = 0; i < userCount; i++) {
+                int index = i;
+                executor.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Map<String, String> variables = baseVariables();
+                    variables.put("name", FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                            + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                    variables.put("username", "lt" + runId + "u" + index);
+                    try {
+                        RequestRunner.Response response = runner.execute(signup, variables);
+                        if (!response.isError() && runner.capture(signup, response, variables)) {
+                            created[index] = new Member(variables.get("user_id"), variables.get("username"), variables.get("name"));
+                            return;
+                        }
+                    } catch (Exception e) {
+                        // counted below
+                    }
+                    failures.incrementAndGet();
+                });
+            }
+        }
+        Arrays.stream(created).filter(member -> member != null).forEach(members::add);
+        if (members.size() < 2) {
+            throw new IllegalStateException("Seeding created only " + members.size() + " users (" + failures.get() + " failed)");
+        }
+
+        cumulative = new double[members.size()];
+        double total = 0;
+        for (int rank = 0; rank < members.size(); rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+
+        Scenario.Step follow = new Scenario.Step();
+        follow.setRequest("Follow User");
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency, Thread.ofVirtual().factory())) {
+            for (Member member : members) {
+                executor.execute(() -> {
+                    for (int i = 0; i < averageFollows; i++) {
+                        Member target = target();
+                        if (target == member) {
+                            continue;
+                        }
+                        Map<String, String> variables = baseVariables();
+                        variables.put("user_id", member.id);
+                        variables.put("target_user_id", target.id);
+                        try {
+                            runner.execute(follow, variables);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        System.out.printf("Seeded %d users with ~%d follows each (%d requests failed)%n",
+                members.size(), averageFollows, failures.get());
+    }
+
+    /**
+     * Variables for one scenario iteration. Steps may add to the map through
+     * captures, so every iteration gets its own copy.
+     */
+    public Map<String, String> variablesForIteration() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Member actor = members.get(random.nextInt(members.size()));
+        Member target = target();
+        long iteration = iterations.incrementAndGet();
+
+        Map<String, String> variables = baseVariables();
+        variables.put("user_id", actor.id);
+        variables.put("username", actor.username);
+        variables.put("name", actor.name);
+        variables.put("target_user_id", target.id);
+        variables.put("target_username", target.username);
+        variables.put("search_term", target.name.substring(0, Math.min(3, target.name.length())).toLowerCase(Locale.ROOT));
+        variables.put("new_username", "lt" + runId + "n" + iteration);
+        variables.put("iteration", Long.toString(iteration));
+        return variables;
+    }
+
+    private Member target() {
+        double point = ThreadLocalRandom.current().nextDouble() * cumulative[cumulative.length - 1];
+        int rank = Arrays.binarySearch(cumulative, point);
+        return members.get(Math.min(members.size() - 1, rank < 0 ? -rank - 1 : rank));
+    }
+
+    private Map<String, String> baseVariables() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("base_url", baseUrl);
+        variables.put("password", PASSWORD);
+        return variables;
+    }
+
+    private static final class Member {
+        private final String id;
+        private final String username;
+        private final String name;
+
+        private Member(String id, String username, String name) {
+            this.id = id;
+            this.username = username;
+            this.name = name;
+        }
+    }
+}